@@ -0,0 +1,121 @@
+/*
+ * Bundle Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanagerapi;
+
+/**
+ * Result of an operation on a bundle done as part of a batch operation of {@link IBundleUtils}.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class BundleOperationResult {
+
+    /**
+     * Status of the operation.
+     */
+    public enum Status {
+        /** The operation has been successfully done. */
+        SUCCESS,
+        /** The bundle has not been found in the OBR repositories. */
+        NOT_FOUND,
+        /** The bundle is not installed. */
+        NOT_INSTALLED,
+        /** The operation failed. */
+        FAILED
+    }
+
+    /** Id of the bundle with the pattern : groupId:artifactId */
+    private final String bundleId;
+    /** Status of the operation. */
+    private final Status status;
+    /** Message describing the result of the operation. */
+    private final String message;
+
+    /**
+     * Main constructor.
+     *
+     * @param bundleId Id of the bundle with the pattern : groupId:artifactId
+     * @param status Status of the operation.
+     * @param message Message describing the result of the operation.
+     */
+    public BundleOperationResult(String bundleId, Status status, String message) {
+        this.bundleId = bundleId;
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * Return the id of the bundle.
+     *
+     * @return The id of the bundle with the pattern : groupId:artifactId
+     */
+    public String getBundleId() {
+        return bundleId;
+    }
+
+    /**
+     * Return the status of the operation.
+     *
+     * @return The status of the operation.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Return the message describing the result of the operation.
+     *
+     * @return The message describing the result of the operation.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Indicates if the operation has been successfully done.
+     *
+     * @return True if the operation has been successfully done, false otherwise.
+     */
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    @Override
+    public String toString() {
+        return bundleId + " : " + status + (message == null ? "" : " (" + message + ")");
+    }
+}
@@ -36,6 +36,11 @@
  */
 package org.orbisgis.bundlemanagerapi;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Utility class providing methods to install, start, stop and uninstall bundles.
  *
@@ -140,6 +145,161 @@ public interface IBundleUtils {
      */
     boolean uninstall(String groupId, String artifactId);
 
+    /**
+     * Install and start the bundles with the given bundle ids with the following pattern : groupId:artifactId
+     * All the bundles are resolved and deployed together, so their common dependencies are resolved and downloaded
+     * only once.
+     *
+     * @param bundleIds Ids of the bundles to install.
+     *
+     * @return The result of the installation of each bundle, with the bundle id as key, in the order of the given ids.
+     */
+    Map<String, BundleOperationResult> installAll(Collection<String> bundleIds);
+
+    /**
+     * Start the installed bundles with the given bundle ids with the following pattern : groupId:artifactId
+     * All the bundles are resolved together before being started.
+     *
+     * @param bundleIds Ids of the bundles to start.
+     *
+     * @return The result of the start of each bundle, with the bundle id as key, in the order of the given ids.
+     */
+    Map<String, BundleOperationResult> startAll(Collection<String> bundleIds);
+
+    /**
+     * Update the installed bundles with the given bundle ids with the following pattern : groupId:artifactId
+     * All the bundles are updated first, then the framework is refreshed once and the bundles which were active
+     * before the update are started again.
+     *
+     * @param bundleIds Ids of the bundles to update.
+     *
+     * @return The result of the update of each bundle, with the bundle id as key, in the order of the given ids.
+     */
+    Map<String, BundleOperationResult> updateAll(Collection<String> bundleIds);
+
+    /**
+     * Return the symbolic names of the installed bundle with the given bundle id with the following pattern :
+     * groupId:artifactId and of its transitive dependents, without acting on them. The names are in the order used by
+     * {@link #stopWithDependents(String)} and {@link #uninstallWithDependents(String)} : a bundle comes before the
+     * bundles it depends on.
+     *
+     * @param bundleId Id of the bundle.
+     *
+     * @return The symbolic names of the affected bundles, empty if the bundle is not installed.
+     */
+    List<String> getDependents(String bundleId);
+
+    /**
+     * Stop the bundle with the given bundle id with the following pattern : groupId:artifactId and its transitive
+     * dependents. A bundle is stopped once all its dependents are stopped, and the independent dependents are stopped
+     * in parallel.
+     *
+     * @param bundleId Id of the bundle to stop.
+     *
+     * @return The result of the stop of each affected bundle, with its symbolic name as key, in the stop order.
+     */
+    Map<String, BundleOperationResult> stopWithDependents(String bundleId);
+
+    /**
+     * Stop and uninstall the bundle with the given bundle id with the following pattern : groupId:artifactId and its
+     * transitive dependents, then refresh the framework once.
+     *
+     * @param bundleId Id of the bundle to uninstall.
+     *
+     * @return The result of the uninstallation of each affected bundle, with its symbolic name as key, in the
+     * uninstallation order.
+     */
+    Map<String, BundleOperationResult> uninstallWithDependents(String bundleId);
+
+    /**
+     * Install the bundle with the given bundle id with the following pattern : groupId:artifactId without blocking the
+     * caller. The operations on the same bundle are executed in their submission order.
+     *
+     * The returned future can be cancelled or completed with a timeout by the caller, for example with
+     * {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)} : if the operation is not started yet,
+     * it is skipped.
+     *
+     * @param bundleId Id of the bundle to install.
+     *
+     * @return The future of the result of the operation.
+     */
+    CompletableFuture<BundleOperationResult> installAsync(String bundleId);
+
+    /**
+     * Start the bundle with the given bundle id with the following pattern : groupId:artifactId without blocking the
+     * caller. The operations on the same bundle are executed in their submission order.
+     *
+     * The returned future can be cancelled or completed with a timeout by the caller, for example with
+     * {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)} : if the operation is not started yet,
+     * it is skipped.
+     *
+     * @param bundleId Id of the bundle to start.
+     *
+     * @return The future of the result of the operation.
+     */
+    CompletableFuture<BundleOperationResult> startAsync(String bundleId);
+
+    /**
+     * Update the bundle with the given bundle id with the following pattern : groupId:artifactId without blocking the
+     * caller. The operations on the same bundle are executed in their submission order.
+     *
+     * The returned future can be cancelled or completed with a timeout by the caller, for example with
+     * {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)} : if the operation is not started yet,
+     * it is skipped.
+     *
+     * @param bundleId Id of the bundle to update.
+     *
+     * @return The future of the result of the operation.
+     */
+    CompletableFuture<BundleOperationResult> updateAsync(String bundleId);
+
+    /**
+     * Stop the bundle with the given bundle id with the following pattern : groupId:artifactId without blocking the
+     * caller. The operations on the same bundle are executed in their submission order.
+     *
+     * The returned future can be cancelled or completed with a timeout by the caller, for example with
+     * {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)} : if the operation is not started yet,
+     * it is skipped.
+     *
+     * @param bundleId Id of the bundle to stop.
+     *
+     * @return The future of the result of the operation.
+     */
+    CompletableFuture<BundleOperationResult> stopAsync(String bundleId);
+
+    /**
+     * Uninstall the bundle with the given bundle id with the following pattern : groupId:artifactId without blocking the
+     * caller. The operations on the same bundle are executed in their submission order.
+     *
+     * The returned future can be cancelled or completed with a timeout by the caller, for example with
+     * {@link CompletableFuture#orTimeout(long, java.util.concurrent.TimeUnit)} : if the operation is not started yet,
+     * it is skipped.
+     *
+     * @param bundleId Id of the bundle to uninstall.
+     *
+     * @return The future of the result of the operation.
+     */
+    CompletableFuture<BundleOperationResult> uninstallAsync(String bundleId);
+
+    /**
+     * Search the symbolic names of the bundles available in the OBR repositories containing the given text, ignoring
+     * the case. Before the end of the registration of the repositories, the search uses the snapshots of the
+     * repositories saved at the previous start.
+     *
+     * @param text Text to search.
+     *
+     * @return The sorted symbolic names of the bundles found.
+     */
+    List<String> search(String text);
+
+    /**
+     * Return a future completed once the registration of the default OBR repositories is done, successfully or not.
+     * The lookups of bundles wait for this registration.
+     *
+     * @return The future of the registration of the default OBR repositories.
+     */
+    CompletableFuture<Void> getRepositoriesReady();
+
     /**
      * Adds an OBR repository.
      *
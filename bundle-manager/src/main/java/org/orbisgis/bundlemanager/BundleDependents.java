@@ -0,0 +1,133 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.Constants;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Graph of the transitive dependents of a bundle, built from the wires provided by the current
+ * {@link org.osgi.framework.wiring.BundleWiring} of each bundle.
+ *
+ * The bundles are ordered from the dependents to the root bundle, so a bundle always comes before the bundles it
+ * depends on : this is the order to stop or uninstall them. The wires closing a dependency cycle are ignored, so the
+ * bundles of a cycle are handled one after the other.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class BundleDependents {
+
+    /** Direct dependents of each bundle of the graph, without the wires closing a cycle. */
+    private final Map<Bundle, Set<Bundle>> dependentMap = new HashMap<>();
+    /** Bundles of the graph, from the dependents to the root bundle. */
+    private final List<Bundle> stopOrder = new ArrayList<>();
+
+    /**
+     * Main constructor.
+     *
+     * @param root Bundle whose dependents are looked for.
+     */
+    BundleDependents(Bundle root) {
+        visit(root, new HashSet<>());
+    }
+
+    /**
+     * Depth-first visit of the dependents of the given bundle. A bundle is added to the stop order once all its
+     * dependents have been added.
+     *
+     * @param bundle Visited bundle.
+     * @param visiting Bundles being visited, used to detect the cycles.
+     */
+    private void visit(Bundle bundle, Set<Bundle> visiting) {
+        visiting.add(bundle);
+        Set<Bundle> dependents = new LinkedHashSet<>();
+        dependentMap.put(bundle, dependents);
+        BundleWiring wiring = bundle.adapt(BundleWiring.class);
+        List<BundleWire> wires = wiring == null ? null : wiring.getProvidedWires(null);
+        for(BundleWire wire : wires == null ? Collections.<BundleWire>emptyList() : wires) {
+            Bundle dependent = wire.getRequirer().getBundle();
+            if(dependent.equals(bundle) || dependent.getBundleId() == Constants.SYSTEM_BUNDLE_ID ||
+                    visiting.contains(dependent)) {
+                continue;
+            }
+            if(!dependentMap.containsKey(dependent)) {
+                visit(dependent, visiting);
+            }
+            dependents.add(dependent);
+        }
+        visiting.remove(bundle);
+        stopOrder.add(bundle);
+    }
+
+    /**
+     * Return the bundles of the graph, from the dependents to the root bundle.
+     *
+     * @return The ordered bundles, including the root bundle.
+     */
+    List<Bundle> getStopOrder() {
+        return Collections.unmodifiableList(stopOrder);
+    }
+
+    /**
+     * Run the given action on all the bundles of the graph. The action on a bundle starts once it is done on all the
+     * dependents of the bundle, so the independent branches of the graph are handled in parallel.
+     *
+     * @param action Action to run, which should not throw exceptions.
+     * @param executor Executor running the actions.
+     *
+     * @return A future completed once the action has been run on all the bundles.
+     */
+    CompletableFuture<Void> runInStopOrder(Consumer<Bundle> action, Executor executor) {
+        Map<Bundle, CompletableFuture<Void>> futureMap = new HashMap<>();
+        for(Bundle bundle : stopOrder) {
+            CompletableFuture<?>[] dependents = dependentMap.get(bundle).stream()
+                    .map(futureMap::get)
+                    .toArray(CompletableFuture<?>[]::new);
+            futureMap.put(bundle, CompletableFuture.allOf(dependents)
+                    .thenRunAsync(() -> action.accept(bundle), executor));
+        }
+        return CompletableFuture.allOf(futureMap.values().toArray(new CompletableFuture<?>[0]));
+    }
+}
@@ -51,7 +51,9 @@ import java.util.stream.Collectors;
 /**
  * Implementation of the {@link org.orbisgis.bundlemanagerapi.IBundleItem} interface with the OSGI framework.
  * While the bundle is not installed, it is referenced with a {@link org.osgi.service.obr.Resource} object which will
- * be used on installation to retrieve the {@link org.osgi.framework.Bundle}.
+ * be used on installation to retrieve the {@link org.osgi.framework.Bundle}. The installed bundle and its state are
+ * read from a {@link BundleRegistry} with the symbolic name of the resource. The resolution plans of the installations
+ * are cached in a {@link ResolutionCache}.
  *
  * @author Sylvain PALOMINOS (UBS 2018)
  * @author Erwan Bocher (CNRS)
@@ -60,12 +62,14 @@ public class BundleItem implements IBundleItem {
 
     /** Logger */
     private static final Logger LOGGER = LoggerFactory.getLogger(BundleItem.class);
-    /** OSGI id of the bundle. It is set once the bundle has been installed */
-    private long id = -1;
+    /** Registry of the installed bundles. */
+    private final BundleRegistry registry;
     /** Resolver used for the bundle installation, coming from the {@link org.osgi.service.obr.RepositoryAdmin}. */
     private final Resolver resolver;
     /** Resource used for the installation of the bundle. */
     private final Resource resource;
+    /** Cache of the resolution plans. */
+    private final ResolutionCache resolutionCache;
 
     /**
      * Main constructor.
@@ -73,25 +77,33 @@ public class BundleItem implements IBundleItem {
      * @param resolver Resolver used for the bundle installation, coming from the
      * {@link org.osgi.service.obr.RepositoryAdmin}.
      * @param resource Resource used for the installation of the bundle.
+     * @param registry Registry of the installed bundles.
+     * @param resolutionCache Cache of the resolution plans.
      */
-    public BundleItem(Resolver resolver, Resource resource){
+    public BundleItem(Resolver resolver, Resource resource, BundleRegistry registry, ResolutionCache resolutionCache){
         this.resolver = resolver;
         this.resolver.add(resource);
         this.resource = resource;
-        for(Bundle bundle : FrameworkUtil.getBundle(BundleItem.class).getBundleContext().getBundles()){
-            if(bundle.getSymbolicName() != null && bundle.getSymbolicName().equals(resource.getSymbolicName())){
-                this.id = bundle.getBundleId();
-            }
-        }
+        this.registry = registry;
+        this.resolutionCache = resolutionCache;
     }
 
     /**
      * Return the {@link org.osgi.framework.Bundle} represented by this class.
      *
-     * @return The {@link org.osgi.framework.Bundle} represented by this class.
+     * @return The {@link org.osgi.framework.Bundle} represented by this class, null if it is not installed.
      */
     private Bundle getBundle(){
-        return FrameworkUtil.getBundle(BundleItem.class).getBundleContext().getBundle(id);
+        return registry.getBundle(resource.getSymbolicName());
+    }
+
+    /**
+     * Return the cached lifecycle state of the {@link org.osgi.framework.Bundle} represented by this class.
+     *
+     * @return The state of the bundle, {@link Bundle#UNINSTALLED} if it is not installed.
+     */
+    private int getState(){
+        return registry.getState(resource.getSymbolicName());
     }
 
     @Override
@@ -102,57 +114,77 @@ public class BundleItem implements IBundleItem {
     @Override
     public void install() {
         if(isInstallReady()) {
-            resolver.resolve();
-            Resource[] resources = resolver.getRequiredResources();
+            String key = resolutionCache.getKey(Arrays.asList(resolver.getAddedResources()));
+            List<Resource> plan = resolutionCache.get(key);
+            if(plan != null && resolutionCache.deploy(plan, true)) {
+                LOGGER.debug("Bundle '" + resource.getSymbolicName() + "' deployed from the cached resolution plan");
+            }
+            else {
+                if(plan != null) {
+                    resolutionCache.remove(key);
+                }
+                deploy(key);
+            }
+            Bundle bundle = getBundle();
+            if(bundle == null) {
+                LOGGER.error("Error on installing the bundle '" + resource.getSymbolicName() + "'");
+                return;
+            }
+            try {
+                bundle.stop();
+            } catch (BundleException e) {
+                LOGGER.error("Error on installing the bundle.\n"+e.getLocalizedMessage());
+            }
+        }
+    }
+
+    /**
+     * Resolve and deploy the added resources with the resolver, then cache the resolution plan.
+     *
+     * @param key Key of the resolution in the cache.
+     */
+    private void deploy(String key) {
+        boolean isResolved = resolver.resolve();
+        Resource[] resources = resolver.getRequiredResources();
+        if ((resources != null) && (resources.length > 0)) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Unsatisfied requirement :\n");
+            for (Resource resource : resources) {
+                sb.append(resource.getPresentationName());
+                sb.append(" (");
+                sb.append(resource.getVersion());
+                sb.append(")\n");
+            }
+            resources = resolver.getOptionalResources();
             if ((resources != null) && (resources.length > 0)) {
-                StringBuilder sb = new StringBuilder();
-                sb.append("Unsatisfied requirement :\n");
                 for (Resource resource : resources) {
+                    sb.append("Optional, ");
                     sb.append(resource.getPresentationName());
                     sb.append(" (");
                     sb.append(resource.getVersion());
                     sb.append(")\n");
                 }
-                resources = resolver.getOptionalResources();
-                if ((resources != null) && (resources.length > 0)) {
-                    for (Resource resource : resources) {
-                        sb.append("Optional, ");
-                        sb.append(resource.getPresentationName());
-                        sb.append(" (");
-                        sb.append(resource.getVersion());
-                        sb.append(")\n");
-                    }
-                }
-                LOGGER.info(sb.toString());
-            }
-            resolver.deploy(true);
-            for (Bundle bundle : FrameworkUtil.getBundle(BundleItem.class).getBundleContext().getBundles()) {
-                if (bundle.getSymbolicName() != null && bundle.getSymbolicName().equals(resource.getSymbolicName())) {
-                    this.id = bundle.getBundleId();
-                }
-            }
-            try {
-                getBundle().stop();
-            } catch (BundleException e) {
-                LOGGER.error("Error on installing the bundle.\n"+e.getLocalizedMessage());
             }
+            LOGGER.info(sb.toString());
+        }
+        resolver.deploy(true);
+        if(isResolved) {
+            resolutionCache.put(key, resolver);
         }
     }
 
     @Override
     public boolean isInstalled() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) &&
-                (bundle.getState()==Bundle.RESOLVED ||
-                        bundle.getState()==Bundle.STARTING ||
-                        bundle.getState()==Bundle.STOPPING ||
-                        bundle.getState()==Bundle.ACTIVE);
+        int state = getState();
+        return state==Bundle.RESOLVED ||
+                state==Bundle.STARTING ||
+                state==Bundle.STOPPING ||
+                state==Bundle.ACTIVE;
     }
 
     @Override
     public boolean isStartReady() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) && (bundle.getState()==Bundle.RESOLVED);
+        return getState()==Bundle.RESOLVED;
     }
 
     @Override
@@ -167,32 +199,28 @@ public class BundleItem implements IBundleItem {
             }
         }
         else{
-            LOGGER.error("Unable to start the bundle '" + id + "', no bundle found with this id");
+            LOGGER.error("Unable to start the bundle '" + resource.getSymbolicName() + "', no bundle found");
         }
     }
 
     @Override
     public boolean isStarting() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) && (bundle.getState()==Bundle.STARTING);
+        return getState()==Bundle.STARTING;
     }
 
     @Override
     public boolean isStarted() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) && (bundle.getState()==Bundle.ACTIVE);
+        return getState()==Bundle.ACTIVE;
     }
 
     @Override
     public boolean isStopReady() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) && (bundle.getState()==Bundle.ACTIVE);
+        return getState()==Bundle.ACTIVE;
     }
 
     @Override
     public boolean isUpdateReady() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) && (bundle.getState()!=Bundle.UNINSTALLED);
+        return getState()!=Bundle.UNINSTALLED;
     }
 
     @Override
@@ -207,7 +235,7 @@ public class BundleItem implements IBundleItem {
             }
         }
         else{
-            LOGGER.error("Unable to update the bundle '" + id + "', no bundle found with this id");
+            LOGGER.error("Unable to update the bundle '" + resource.getSymbolicName() + "', no bundle found");
         }
     }
 
@@ -223,30 +251,27 @@ public class BundleItem implements IBundleItem {
             }
         }
         else{
-            LOGGER.error("Unable to stop the bundle '" + id + "', no bundle found with this id");
+            LOGGER.error("Unable to stop the bundle '" + resource.getSymbolicName() + "', no bundle found");
         }
     }
 
     @Override
     public boolean isStopping() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) &&
-                (bundle.getState()!=Bundle.STOPPING);
+        return getState()==Bundle.STOPPING;
     }
 
     @Override
     public boolean isStopped() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) &&
-                (bundle.getState()!=Bundle.ACTIVE) &&
-                (bundle.getState()!=Bundle.STOPPING) &&
-                (bundle.getState()!=Bundle.STARTING);
+        int state = getState();
+        return (state!=Bundle.UNINSTALLED) &&
+                (state!=Bundle.ACTIVE) &&
+                (state!=Bundle.STOPPING) &&
+                (state!=Bundle.STARTING);
     }
 
     @Override
     public boolean isUninstallReady() {
-        Bundle bundle = getBundle();
-        return (bundle!=null) && (bundle.getState()!=Bundle.UNINSTALLED);
+        return getState()!=Bundle.UNINSTALLED;
     }
 
     @Override
@@ -255,21 +280,19 @@ public class BundleItem implements IBundleItem {
         if(bundle != null && isUninstallReady()) {
             try {
                 bundle.uninstall();
-                id = -1;
             } catch (BundleException e) {
                 LOGGER.error("Unable to start the bundle '" + getBundle().getSymbolicName() +
                         "'.\n" + e.getLocalizedMessage());
             }
         }
         else{
-            LOGGER.error("Unable to start the bundle '" + id + "', no bundle found with this id");
+            LOGGER.error("Unable to start the bundle '" + resource.getSymbolicName() + "', no bundle found");
         }
     }
 
     @Override
     public boolean isUninstalled() {
-        Bundle bundle = getBundle();
-        return (bundle==null) || (bundle.getState()!=Bundle.UNINSTALLED);
+        return getState()==Bundle.UNINSTALLED;
     }
 
     @Override
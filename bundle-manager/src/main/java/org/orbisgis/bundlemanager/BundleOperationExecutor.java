@@ -0,0 +1,172 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.orbisgis.bundlemanagerapi.BundleOperationResult;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executor of the asynchronous bundle operations.
+ *
+ * The operations run on a bounded pool of daemon threads. The operations on the same bundle are chained, so they are
+ * executed in their submission order : a stop can not overtake a pending install of the same bundle, while the
+ * operations on different bundles run concurrently.
+ *
+ * An operation which is cancelled or which completes exceptionally, for example with a timeout, before being started
+ * is skipped. Once started, an operation runs until its end, but its result is discarded if its future has already
+ * been completed. When the executor is shut down, the futures of the pending operations are cancelled and the new
+ * operations are rejected.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class BundleOperationExecutor {
+
+    /** Maximum number of operations waiting for a thread. */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /** Executor running the operations. */
+    private final ThreadPoolExecutor executor;
+    /** Timeout of an operation, starting when it is executed. */
+    private final long timeout;
+    /** Unit of the timeout. */
+    private final TimeUnit timeoutUnit;
+    /** Future completed at the end of the last operation submitted for each bundle, with the bundle key as key. */
+    private final Map<String, CompletableFuture<Void>> tailMap = new ConcurrentHashMap<>();
+    /** Futures of the operations which are not completed yet. */
+    private final Set<CompletableFuture<BundleOperationResult>> pendingSet = ConcurrentHashMap.newKeySet();
+    /** True once the executor is shut down. */
+    private volatile boolean isShutdown = false;
+
+    /**
+     * Main constructor.
+     *
+     * @param threadCount Maximum number of operations executed at the same time.
+     * @param timeout Timeout of an operation, starting when it is executed.
+     * @param timeoutUnit Unit of the timeout.
+     */
+    BundleOperationExecutor(int threadCount, long timeout, TimeUnit timeoutUnit) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+                    Thread thread = new Thread(r, "Bundle operation " + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeout = timeout;
+        this.timeoutUnit = timeoutUnit;
+    }
+
+    /**
+     * Submit an operation on the bundle with the given key. It is executed once all the operations previously
+     * submitted for the same bundle are done.
+     *
+     * @param key Key of the bundle, like its symbolic name.
+     * @param operation Operation to execute.
+     *
+     * @return The future of the result of the operation, completed exceptionally with a
+     * {@link RejectedExecutionException} if the executor is shut down.
+     */
+    CompletableFuture<BundleOperationResult> submit(String key, Supplier<BundleOperationResult> operation) {
+        CompletableFuture<BundleOperationResult> future = new CompletableFuture<>();
+        if(isShutdown) {
+            future.completeExceptionally(new RejectedExecutionException("The bundle operation executor is shut down"));
+            return future;
+        }
+        pendingSet.add(future);
+        future.whenComplete((result, throwable) -> pendingSet.remove(future));
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Runnable task = () -> {
+            try {
+                if(!future.isDone()) {
+                    future.orTimeout(timeout, timeoutUnit);
+                    future.complete(operation.get());
+                }
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                done.complete(null);
+            }
+        };
+        tailMap.compute(key, (k, tail) -> {
+            if(tail == null) {
+                execute(task, future, done);
+            }
+            else {
+                tail.whenComplete((ignored, throwable) -> execute(task, future, done));
+            }
+            return done;
+        });
+        done.whenComplete((ignored, throwable) -> tailMap.remove(key, done));
+        return future;
+    }
+
+    /**
+     * Execute the given task. If the executor refuses it, the future is completed exceptionally.
+     *
+     * @param task Task to execute.
+     * @param future Future of the operation result.
+     * @param done Future completed at the end of the task.
+     */
+    private void execute(Runnable task, CompletableFuture<BundleOperationResult> future,
+                         CompletableFuture<Void> done) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Shutdown the executor. The pending operations are not executed and their futures are completed with a
+     * {@link CancellationException}. The operations submitted afterwards are rejected.
+     */
+    void shutdown() {
+        isShutdown = true;
+        //Cancel the futures before interrupting the running operations, which could complete them otherwise
+        pendingSet.forEach(future -> future.cancel(false));
+        executor.shutdownNow();
+        tailMap.values().forEach(done -> done.complete(null));
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.SynchronousBundleListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the installed bundles by symbolic name, kept up to date by listening to the bundle events.
+ *
+ * The lifecycle state of each bundle is cached when its event is received, so looking up a bundle or its state is a
+ * map access which does not allocate anything. If several bundles have the same symbolic name, the last installed
+ * one is registered.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class BundleRegistry implements SynchronousBundleListener {
+
+    /** Context used to listen to the bundle events. */
+    private final BundleContext bundleContext;
+    /** Registered bundles with their symbolic name as key. */
+    private final Map<String, Entry> entryMap = new ConcurrentHashMap<>();
+
+    /**
+     * Main constructor.
+     *
+     * @param bundleContext Context used to listen to the bundle events.
+     */
+    public BundleRegistry(BundleContext bundleContext) {
+        this.bundleContext = bundleContext;
+    }
+
+    /**
+     * Start listening to the bundle events and register the bundles already installed.
+     */
+    public void open() {
+        bundleContext.addBundleListener(this);
+        for(Bundle bundle : bundleContext.getBundles()) {
+            register(bundle);
+        }
+    }
+
+    /**
+     * Stop listening to the bundle events and clear the registry.
+     */
+    public void close() {
+        bundleContext.removeBundleListener(this);
+        entryMap.clear();
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        Bundle bundle = event.getBundle();
+        if(event.getType() == BundleEvent.UNINSTALLED) {
+            unregister(bundle);
+        }
+        else {
+            register(bundle);
+        }
+    }
+
+    /**
+     * Register the given bundle or update its state.
+     *
+     * @param bundle Bundle to register.
+     */
+    private void register(Bundle bundle) {
+        String symbolicName = bundle.getSymbolicName();
+        if(symbolicName == null) {
+            return;
+        }
+        entryMap.compute(symbolicName, (name, entry) -> {
+            if(entry == null || entry.bundle.getBundleId() < bundle.getBundleId()) {
+                return new Entry(bundle);
+            }
+            if(entry.bundle.getBundleId() == bundle.getBundleId()) {
+                entry.state = bundle.getState();
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Unregister the given bundle. If another installed bundle has the same symbolic name, it is registered instead.
+     *
+     * @param bundle Bundle to unregister.
+     */
+    private void unregister(Bundle bundle) {
+        String symbolicName = bundle.getSymbolicName();
+        if(symbolicName == null) {
+            return;
+        }
+        Entry entry = entryMap.get(symbolicName);
+        if(entry != null && entry.bundle.getBundleId() == bundle.getBundleId() &&
+                entryMap.remove(symbolicName, entry)) {
+            for(Bundle other : bundleContext.getBundles()) {
+                if(symbolicName.equals(other.getSymbolicName()) && other.getState() != Bundle.UNINSTALLED) {
+                    register(other);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the bundle with the given symbolic name.
+     *
+     * @param symbolicName Symbolic name of the bundle.
+     *
+     * @return The bundle or null if there is no installed bundle with this symbolic name.
+     */
+    public Bundle getBundle(String symbolicName) {
+        Entry entry = entryMap.get(symbolicName);
+        return entry == null ? null : entry.bundle;
+    }
+
+    /**
+     * Return the lifecycle state of the bundle with the given symbolic name.
+     *
+     * @param symbolicName Symbolic name of the bundle.
+     *
+     * @return The state of the bundle, {@link Bundle#UNINSTALLED} if there is no installed bundle with this symbolic
+     * name.
+     */
+    public int getState(String symbolicName) {
+        Entry entry = entryMap.get(symbolicName);
+        return entry == null ? Bundle.UNINSTALLED : entry.state;
+    }
+
+    /**
+     * Registered bundle with its cached state.
+     */
+    private static final class Entry {
+        private final Bundle bundle;
+        private volatile int state;
+
+        private Entry(Bundle bundle) {
+            this.bundle = bundle;
+            this.state = bundle.getState();
+        }
+    }
+}
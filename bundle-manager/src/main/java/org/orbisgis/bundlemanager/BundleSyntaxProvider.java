@@ -37,14 +37,19 @@
 package org.orbisgis.bundlemanager;
 
 import org.orbisgis.bundlemanagerapi.IBundleUtils;
+import org.orbisgis.syntaxmanagerapi.ISyntaxChangeListener;
 import org.orbisgis.syntaxmanagerapi.ISyntaxObject;
 import org.orbisgis.syntaxmanagerapi.ISyntaxProvider;
+import org.orbisgis.syntaxmanagerapi.SyntaxChangeEvent;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Extension of the SyntaxProvider class which register the BundleUtils component under the name 'bundle'.
@@ -58,16 +63,45 @@ public class BundleSyntaxProvider implements ISyntaxProvider {
     /** SyntaxProvider name */
     private static final String NAME = "BundleSyntaxProvider";
 
-    private List<ISyntaxObject> syntaxObjectList = new ArrayList<>();
+    /** ISyntaxObject list, safe to iterate while the IBundleUtils is bound or unbound */
+    private List<ISyntaxObject> syntaxObjectList = new CopyOnWriteArrayList<>();
+    /** Listeners of the added and removed ISyntaxObject */
+    private List<ISyntaxChangeListener> listenerList = new CopyOnWriteArrayList<>();
+    /** Version of the ISyntaxObject list, incremented on each change */
+    private AtomicLong version = new AtomicLong();
 
     @Override
     public void add(ISyntaxObject syntaxObject) {
         syntaxObjectList.add(syntaxObject);
+        fireSyntaxChanged(Collections.singletonMap(syntaxObject.getName(), syntaxObject), Collections.emptyMap());
     }
 
     @Override
     public void remove(ISyntaxObject syntaxObject) {
-        syntaxObjectList.remove(syntaxObject);
+        if(syntaxObjectList.remove(syntaxObject)) {
+            fireSyntaxChanged(Collections.emptyMap(), Collections.singletonMap(syntaxObject.getName(), syntaxObject));
+        }
+    }
+
+    @Override
+    public void addSyntaxChangeListener(ISyntaxChangeListener listener) {
+        listenerList.add(listener);
+    }
+
+    @Override
+    public void removeSyntaxChangeListener(ISyntaxChangeListener listener) {
+        listenerList.remove(listener);
+    }
+
+    /**
+     * Notify the listeners of the given change.
+     *
+     * @param added Added ISyntaxObject with their name as key.
+     * @param removed Removed ISyntaxObject with their name as key.
+     */
+    private void fireSyntaxChanged(Map<String, ISyntaxObject> added, Map<String, ISyntaxObject> removed) {
+        SyntaxChangeEvent event = new SyntaxChangeEvent(version.incrementAndGet(), added, removed);
+        listenerList.forEach(listener -> listener.syntaxChanged(event));
     }
 
     @Override
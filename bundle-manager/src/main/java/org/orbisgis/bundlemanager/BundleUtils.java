@@ -36,25 +36,52 @@
  */
 package org.orbisgis.bundlemanager;
 
+import org.orbisgis.bundlemanagerapi.BundleOperationResult;
 import org.orbisgis.bundlemanagerapi.IBundleUtils;
 import org.orbisgis.syntaxmanagerapi.ISyntaxObject;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.FrameworkEvent;
 import org.osgi.framework.Version;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.framework.wiring.FrameworkWiring;
 import org.osgi.service.obr.Repository;
+import org.osgi.service.obr.Requirement;
 import org.osgi.service.obr.RepositoryAdmin;
+import org.osgi.service.obr.Resolver;
 import org.osgi.service.obr.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
+import java.net.URLConnection;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 /**
  * Implementation of the interface {@link org.orbisgis.bundlemanagerapi.IBundleUtils} interface with the OSGI framework.
@@ -69,21 +96,103 @@ public class BundleUtils implements IBundleUtils, ISyntaxObject {
     private static final Logger LOGGER = LoggerFactory.getLogger(BundleUtils.class);
     /** SyntaxObject name */
     private static final String NAME = "bundle";
+    /** Maximum number of asynchronous operations executed at the same time. */
+    private static final int ASYNC_THREAD_COUNT = 4;
+    /** Timeout in minutes of an asynchronous operation, which may download bundles. */
+    private static final long ASYNC_TIMEOUT = 10;
+    /** Connect timeout in milliseconds of an OBR repository. */
+    private static final int REPOSITORY_CONNECT_TIMEOUT = 10_000;
+    /** Read timeout in milliseconds of an OBR repository. */
+    private static final int REPOSITORY_READ_TIMEOUT = 30_000;
+    /** Timeout in seconds of the registration of an OBR repository, including the download of its index. */
+    private static final long REPOSITORY_REGISTRATION_TIMEOUT = 120;
+    /** Timeout in seconds of the refresh of the framework after an update. */
+    private static final long REFRESH_TIMEOUT = 120;
+    /** Maximum number of bundles stopped at the same time with their dependents. */
+    private static final int DEPENDENTS_THREAD_COUNT = 8;
+    /** Timeout in seconds of the stop of a bundle and its dependents. */
+    private static final long DEPENDENTS_TIMEOUT = 120;
+    /** Number of stripes of the bundle locks. */
+    private static final int LOCK_STRIPES = 64;
+    /** Maximum number of OBR repositories registered at the same time. */
+    private static final int REPOSITORY_THREAD_COUNT = 4;
     private static final URI ORBISGIS_OSGI_REPOSITORY = URI.create("http://plugins.orbisgis.org/.meta/obr.xml");
     private static final URI ORBISGIS_OSGI_REPOSITORY_SNAPSHOT =
             URI.create("http://nexus.orbisgis.org/content/shadows/obr-snapshot/.meta/obr.xml");
     /** {@link org.osgi.service.obr.RepositoryAdmin} used for the bundle resolution. */
     private RepositoryAdmin repositoryAdmin;
+    /** Index of the resources of the OBR repositories by symbolic name. */
+    private final ResourceIndex resourceIndex = new ResourceIndex();
+    /** Index of the resources read from the repository snapshots of the previous start. */
+    private final ResourceIndex snapshotIndex = new ResourceIndex();
+    /** Registry of the installed bundles, shared by the {@link BundleItem}. */
+    private BundleRegistry bundleRegistry;
+    /** Cache of the resolution plans. */
+    private ResolutionCache resolutionCache;
+    /** Locks of the bundles by symbolic name, linearizing the operations on the same bundle. */
+    private final StripedLock bundleLocks = new StripedLock(LOCK_STRIPES);
+    /** Context of the bundle of this component. */
+    private BundleContext bundleContext;
+    /** Executor of the asynchronous operations. */
+    private BundleOperationExecutor operationExecutor;
+    /** Executor registering the OBR repositories. */
+    private ExecutorService repositoryExecutor;
+    /** Future completed once the registration of the default OBR repositories is done. */
+    private volatile CompletableFuture<Void> repositoriesReady = CompletableFuture.completedFuture(null);
 
     @Activate
-    public void init(){
+    public void init(BundleContext bundleContext){
+        this.bundleContext = bundleContext;
+        bundleRegistry = new BundleRegistry(bundleContext);
+        bundleRegistry.open();
+        resolutionCache = new ResolutionCache(bundleContext, bundleRegistry, repositoryAdmin);
+        operationExecutor = new BundleOperationExecutor(ASYNC_THREAD_COUNT, ASYNC_TIMEOUT, TimeUnit.MINUTES);
         List<URI> serverURIList = new ArrayList<>();
         serverURIList.add(ORBISGIS_OSGI_REPOSITORY);
         serverURIList.add(ORBISGIS_OSGI_REPOSITORY_SNAPSHOT);
-        Executors.newSingleThreadExecutor().execute(new RegisterRepositories(serverURIList));
+        AtomicInteger threadCount = new AtomicInteger();
+        repositoryExecutor = Executors.newFixedThreadPool(Math.min(REPOSITORY_THREAD_COUNT, serverURIList.size()),
+                r -> {
+                    Thread thread = new Thread(r, "OBR repository registration " + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        CompletableFuture<?>[] registrations = new CompletableFuture<?>[serverURIList.size()];
+        for(int i = 0; i < registrations.length; i++) {
+            URI serverURI = serverURIList.get(i);
+            File snapshotFile = getRepositoryDataFile(serverURI, ".snapshot");
+            RepositorySnapshot snapshot = RepositorySnapshot.read(snapshotFile);
+            snapshotIndex.addRepository(snapshot);
+            registrations[i] = CompletableFuture.runAsync(new RegisterRepository(serverURI, snapshotFile,
+                    getRepositoryDataFile(serverURI, ".xml"), snapshot), repositoryExecutor)
+                    .orTimeout(REPOSITORY_REGISTRATION_TIMEOUT, TimeUnit.SECONDS)
+                    .exceptionally(throwable -> {
+                        LOGGER.error("Unable to register the repository '" + serverURI + "' in time");
+                        return null;
+                    });
+        }
+        repositoriesReady = CompletableFuture.allOf(registrations);
         LOGGER.debug("Component started");
     }
 
+    @Deactivate
+    public void dispose(){
+        if(repositoryExecutor != null) {
+            repositoryExecutor.shutdownNow();
+            repositoryExecutor = null;
+        }
+        repositoriesReady.cancel(false);
+        if(operationExecutor != null) {
+            operationExecutor.shutdown();
+            operationExecutor = null;
+        }
+        if(bundleRegistry != null) {
+            bundleRegistry.close();
+            bundleRegistry = null;
+        }
+        LOGGER.debug("Component stopped");
+    }
+
     @Override
     public boolean install(String bundleId){
         String[] split = bundleId.split(":");
@@ -98,41 +207,38 @@ public class BundleUtils implements IBundleUtils, ISyntaxObject {
 
     @Override
     public boolean install(String groupId, String artifactId){
-        LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"' from OBR repositories");
-        Resource higherVersion = null;
-        for(Repository repository : repositoryAdmin.listRepositories()){
-            for(Resource resource : repository.getResources()){
-                if(resource.getSymbolicName().equals(groupId+"."+artifactId)) {
-                    if(higherVersion == null || resource.getVersion().compareTo(higherVersion.getVersion()) > 0){
-                        higherVersion = resource;
-                    }
-                    LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+resource.getVersion()+"' found");
+        ReentrantLock lock = bundleLocks.get(groupId+"."+artifactId);
+        lock.lock();
+        try {
+            LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"' from OBR repositories");
+            Resource higherVersion = findResource(groupId+"."+artifactId);
+            if(higherVersion != null){
+                LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"' found");
+                BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), higherVersion, bundleRegistry,
+                        resolutionCache);
+                bundleItem.install();
+                if(bundleItem.isInstalled()){
+                    LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"' installed");
+                }
+                else{
+                    LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"' not installed");
+                    return false;
+                }
+                bundleItem.start();
+                if(bundleItem.isStarted()){
+                    LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"'  started");
+                    return true;
+                }
+                else{
+                    LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"'  not started");
+                    return false;
                 }
             }
-            LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' not found in repository '"+repository.getName()+"'");
-        }
-        if(higherVersion != null){
-            BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), higherVersion);
-            bundleItem.install();
-            if(bundleItem.isInstalled()){
-                LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"' installed");
-            }
-            else{
-                LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"' not installed");
-                return false;
-            }
-            bundleItem.start();
-            if(bundleItem.isStarted()){
-                LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"'  started");
-                return true;
-            }
-            else{
-                LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' version '"+higherVersion.getVersion()+"'  not started");
-                return false;
-            }
+            LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' not found");
+            return false;
+        } finally {
+            lock.unlock();
         }
-        LOGGER.debug("Bundle '"+groupId+"."+artifactId+"' not found");
-        return false;
     }
 
     @Override
@@ -149,28 +255,32 @@ public class BundleUtils implements IBundleUtils, ISyntaxObject {
 
     @Override
     public boolean start(String groupId, String artifactId){
-        LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"'");
-        for(Repository repository : repositoryAdmin.listRepositories()){
-            for(Resource resource : repository.getResources()){
-                if(resource.getSymbolicName().equals(groupId+"."+artifactId)) {
-                    LOGGER.debug("Bundle "+groupId+"."+artifactId+" found");
-                    BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), resource);
-                    if(!bundleItem.isInstalled()){
-                        LOGGER.error("The bundle '"+groupId+"."+artifactId+"' is not installed yet");
-                    }
-                    else {
-                        bundleItem.start();
-                        if (bundleItem.isStarted()) {
-                            LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' started");
-                        } else {
-                            LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' not started");
-                        }
-                        return bundleItem.isStarted();
+        ReentrantLock lock = bundleLocks.get(groupId+"."+artifactId);
+        lock.lock();
+        try {
+            LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"'");
+            Resource resource = findResource(groupId+"."+artifactId);
+            if(resource != null) {
+                LOGGER.debug("Bundle "+groupId+"."+artifactId+" found");
+                BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), resource, bundleRegistry,
+                        resolutionCache);
+                if(!bundleItem.isInstalled()){
+                    LOGGER.error("The bundle '"+groupId+"."+artifactId+"' is not installed yet");
+                }
+                else {
+                    bundleItem.start();
+                    if (bundleItem.isStarted()) {
+                        LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' started");
+                    } else {
+                        LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' not started");
                     }
+                    return bundleItem.isStarted();
                 }
             }
+            return false;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
     @Override
@@ -187,28 +297,32 @@ public class BundleUtils implements IBundleUtils, ISyntaxObject {
 
     @Override
     public boolean update(String groupId, String artifactId) {
-        LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"'");
-        for(Repository repository : repositoryAdmin.listRepositories()){
-            for(Resource resource : repository.getResources()){
-                if(resource.getSymbolicName().equals(groupId+"."+artifactId)) {
-                    LOGGER.debug("Bundle "+groupId+"."+artifactId+" found");
-                    BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), resource);
-                    if(!bundleItem.isInstalled()){
-                        LOGGER.error("The bundle '"+groupId+"."+artifactId+"' is not installed yet");
-                    }
-                    else {
-                        bundleItem.update();
-                        if (bundleItem.isStarted()) {
-                            LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' updated");
-                        } else {
-                            LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' not updated");
-                        }
-                        return bundleItem.isStarted();
+        ReentrantLock lock = bundleLocks.get(groupId+"."+artifactId);
+        lock.lock();
+        try {
+            LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"'");
+            Resource resource = findResource(groupId+"."+artifactId);
+            if(resource != null) {
+                LOGGER.debug("Bundle "+groupId+"."+artifactId+" found");
+                BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), resource, bundleRegistry,
+                        resolutionCache);
+                if(!bundleItem.isInstalled()){
+                    LOGGER.error("The bundle '"+groupId+"."+artifactId+"' is not installed yet");
+                }
+                else {
+                    bundleItem.update();
+                    if (bundleItem.isStarted()) {
+                        LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' updated");
+                    } else {
+                        LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' not updated");
                     }
+                    return bundleItem.isStarted();
                 }
             }
+            return false;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
     @Override
@@ -225,28 +339,32 @@ public class BundleUtils implements IBundleUtils, ISyntaxObject {
 
     @Override
     public boolean stop(String groupId, String artifactId){
-        LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"'");
-        for(Repository repository : repositoryAdmin.listRepositories()){
-            for(Resource resource : repository.getResources()){
-                if(resource.getSymbolicName().equals(groupId+"."+artifactId)) {
-                    LOGGER.debug("Bundle "+groupId+"."+artifactId+" found");
-                    BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), resource);
-                    if(!bundleItem.isInstalled()){
-                        LOGGER.error("The bundle '"+groupId+"."+artifactId+"' is not installed yet");
-                    }
-                    else {
-                        bundleItem.stop();
-                        if (bundleItem.isStopped()) {
-                            LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' stopped");
-                        } else {
-                            LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' not stopped");
-                        }
-                        return bundleItem.isStopped();
+        ReentrantLock lock = bundleLocks.get(groupId+"."+artifactId);
+        lock.lock();
+        try {
+            LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"'");
+            Resource resource = findResource(groupId+"."+artifactId);
+            if(resource != null) {
+                LOGGER.debug("Bundle "+groupId+"."+artifactId+" found");
+                BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), resource, bundleRegistry,
+                        resolutionCache);
+                if(!bundleItem.isInstalled()){
+                    LOGGER.error("The bundle '"+groupId+"."+artifactId+"' is not installed yet");
+                }
+                else {
+                    bundleItem.stop();
+                    if (bundleItem.isStopped()) {
+                        LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' stopped");
+                    } else {
+                        LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' not stopped");
                     }
+                    return bundleItem.isStopped();
                 }
             }
+            return false;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
     @Override
@@ -263,28 +381,646 @@ public class BundleUtils implements IBundleUtils, ISyntaxObject {
 
     @Override
     public boolean uninstall(String groupId, String artifactId){
-        LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"'");
-        for(Repository repository : repositoryAdmin.listRepositories()){
-            for(Resource resource : repository.getResources()){
-                if(resource.getSymbolicName().equals(groupId+"."+artifactId)) {
-                    LOGGER.debug("Bundle "+groupId+"."+artifactId+" found");
-                    BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), resource);
-                    if(!bundleItem.isInstalled()){
-                        LOGGER.error("The bundle '"+groupId+"."+artifactId+"' is not installed yet");
+        ReentrantLock lock = bundleLocks.get(groupId+"."+artifactId);
+        lock.lock();
+        try {
+            LOGGER.debug("Trying to install bundle '"+groupId+"."+artifactId+"'");
+            Resource resource = findResource(groupId+"."+artifactId);
+            if(resource != null) {
+                LOGGER.debug("Bundle "+groupId+"."+artifactId+" found");
+                BundleItem bundleItem = new BundleItem(repositoryAdmin.resolver(), resource, bundleRegistry,
+                        resolutionCache);
+                if(!bundleItem.isInstalled()){
+                    LOGGER.error("The bundle '"+groupId+"."+artifactId+"' is not installed yet");
+                }
+                else {
+                    bundleItem.uninstall();
+                    if (bundleItem.isUninstalled()) {
+                        LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' uninstalled");
+                    } else {
+                        LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' not uninstalled");
                     }
-                    else {
-                        bundleItem.uninstall();
-                        if (bundleItem.isUninstalled()) {
-                            LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' uninstalled");
-                        } else {
-                            LOGGER.debug("Bundle '" + groupId + "." + artifactId + "' not uninstalled");
+                    return bundleItem.isUninstalled();
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Map<String, BundleOperationResult> installAll(Collection<String> bundleIds){
+        List<ReentrantLock> locks = bundleLocks.lockAll(getSymbolicNames(bundleIds));
+        try {
+            Map<String, BundleOperationResult> resultMap = new HashMap<>();
+            Map<String, Resource> resourceMap = new LinkedHashMap<>();
+            for(String bundleId : bundleIds){
+                String symbolicName = getSymbolicName(bundleId);
+                if(symbolicName == null){
+                    resultMap.put(bundleId, new BundleOperationResult(bundleId, BundleOperationResult.Status.FAILED,
+                            "The id of the bundle should have the following pattern : groupId:artifactId"));
+                    continue;
+                }
+                Resource resource = findResource(symbolicName);
+                if(resource == null){
+                    resultMap.put(bundleId, new BundleOperationResult(bundleId, BundleOperationResult.Status.NOT_FOUND,
+                            "Bundle '"+symbolicName+"' not found"));
+                }
+                else{
+                    LOGGER.debug("Bundle '"+symbolicName+"' version '"+resource.getVersion()+"' found");
+                    resourceMap.put(bundleId, resource);
+                }
+            }
+            if(!resourceMap.isEmpty()){
+                deploy(resourceMap, resultMap);
+            }
+            List<Bundle> bundles = new ArrayList<>();
+            for(Map.Entry<String, Resource> entry : resourceMap.entrySet()){
+                if(!resultMap.containsKey(entry.getKey())){
+                    Bundle bundle = bundleRegistry.getBundle(entry.getValue().getSymbolicName());
+                    if(bundle == null){
+                        resultMap.put(entry.getKey(), new BundleOperationResult(entry.getKey(),
+                                BundleOperationResult.Status.FAILED, "Bundle not installed"));
+                    }
+                    else{
+                        bundles.add(bundle);
+                    }
+                }
+            }
+            startBundles(bundles, resultMap);
+            return getOrderedResults(bundleIds, resultMap);
+        } finally {
+            bundleLocks.unlockAll(locks);
+        }
+    }
+
+    @Override
+    public Map<String, BundleOperationResult> startAll(Collection<String> bundleIds){
+        List<ReentrantLock> locks = bundleLocks.lockAll(getSymbolicNames(bundleIds));
+        try {
+            Map<String, BundleOperationResult> resultMap = new HashMap<>();
+            List<Bundle> bundles = new ArrayList<>();
+            for(String bundleId : bundleIds){
+                String symbolicName = getSymbolicName(bundleId);
+                Bundle bundle = symbolicName == null ? null : bundleRegistry.getBundle(symbolicName);
+                if(symbolicName == null){
+                    resultMap.put(bundleId, new BundleOperationResult(bundleId, BundleOperationResult.Status.FAILED,
+                            "The id of the bundle should have the following pattern : groupId:artifactId"));
+                }
+                else if(bundle == null){
+                    resultMap.put(bundleId, new BundleOperationResult(bundleId,
+                            BundleOperationResult.Status.NOT_INSTALLED, "The bundle '"+symbolicName+"' is not installed yet"));
+                }
+                else{
+                    bundles.add(bundle);
+                }
+            }
+            startBundles(bundles, resultMap);
+            return getOrderedResults(bundleIds, resultMap);
+        } finally {
+            bundleLocks.unlockAll(locks);
+        }
+    }
+
+    @Override
+    public Map<String, BundleOperationResult> updateAll(Collection<String> bundleIds){
+        List<ReentrantLock> locks = bundleLocks.lockAll(getSymbolicNames(bundleIds));
+        try {
+            Map<String, BundleOperationResult> resultMap = new HashMap<>();
+            Map<String, Bundle> bundleMap = new LinkedHashMap<>();
+            for(String bundleId : bundleIds){
+                String symbolicName = getSymbolicName(bundleId);
+                Bundle bundle = symbolicName == null ? null : bundleRegistry.getBundle(symbolicName);
+                if(symbolicName == null){
+                    resultMap.put(bundleId, new BundleOperationResult(bundleId, BundleOperationResult.Status.FAILED,
+                            "The id of the bundle should have the following pattern : groupId:artifactId"));
+                }
+                else if(bundle == null){
+                    resultMap.put(bundleId, new BundleOperationResult(bundleId,
+                            BundleOperationResult.Status.NOT_INSTALLED, "The bundle '"+symbolicName+"' is not installed yet"));
+                }
+                else{
+                    bundleMap.put(symbolicName, bundle);
+                }
+            }
+            //Stop the active bundles first, so they are started only once, after the refresh
+            List<Bundle> activeBundles = new ArrayList<>();
+            List<Bundle> updatedBundles = new ArrayList<>();
+            for(Map.Entry<String, Bundle> entry : bundleMap.entrySet()){
+                Bundle bundle = entry.getValue();
+                try {
+                    if(bundle.getState() == Bundle.ACTIVE || bundle.getState() == Bundle.STARTING){
+                        bundle.stop(Bundle.STOP_TRANSIENT);
+                        activeBundles.add(bundle);
+                    }
+                    bundle.update();
+                    updatedBundles.add(bundle);
+                } catch (BundleException | IllegalStateException e) {
+                    resultMap.put(entry.getKey(), new BundleOperationResult(entry.getKey(),
+                            BundleOperationResult.Status.FAILED, "Unable to update the bundle : "+e.getLocalizedMessage()));
+                }
+            }
+            String refreshError = null;
+            if(!updatedBundles.isEmpty()){
+                try {
+                    refreshBundles(updatedBundles).get(REFRESH_TIMEOUT, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    refreshError = "Interrupted while refreshing the framework after the update";
+                } catch (ExecutionException | TimeoutException e) {
+                    LOGGER.error("Unable to refresh the framework after the update.\n"+e.getLocalizedMessage());
+                    refreshError = "Unable to refresh the framework after the update : "+e.getLocalizedMessage();
+                }
+            }
+            //Restart all the bundles which were active, even the ones which failed to update
+            for(Bundle bundle : activeBundles){
+                if(bundle.getState() != Bundle.ACTIVE){
+                    try {
+                        bundle.start(Bundle.START_TRANSIENT);
+                    } catch (BundleException | IllegalStateException e) {
+                        String name = bundle.getSymbolicName();
+                        String message = "Unable to restart the bundle : "+e.getLocalizedMessage();
+                        BundleOperationResult updateResult = resultMap.get(name);
+                        resultMap.put(name, new BundleOperationResult(name, BundleOperationResult.Status.FAILED,
+                                updateResult == null ? message : updateResult.getMessage()+"\n"+message));
+                    }
+                }
+            }
+            for(Bundle bundle : updatedBundles){
+                String name = bundle.getSymbolicName();
+                resultMap.putIfAbsent(name, refreshError == null ?
+                        new BundleOperationResult(name, BundleOperationResult.Status.SUCCESS,
+                                "Bundle '"+name+"' version '"+bundle.getVersion()+"' updated") :
+                        new BundleOperationResult(name, BundleOperationResult.Status.FAILED, refreshError));
+            }
+            return getOrderedResults(bundleIds, resultMap);
+        } finally {
+            bundleLocks.unlockAll(locks);
+        }
+    }
+
+    @Override
+    public List<String> getDependents(String bundleId){
+        String symbolicName = getSymbolicName(bundleId);
+        Bundle bundle = symbolicName == null ? null : bundleRegistry.getBundle(symbolicName);
+        List<String> symbolicNames = new ArrayList<>();
+        if(bundle != null){
+            for(Bundle dependent : new BundleDependents(bundle).getStopOrder()){
+                symbolicNames.add(dependent.getSymbolicName());
+            }
+        }
+        return symbolicNames;
+    }
+
+    @Override
+    public Map<String, BundleOperationResult> stopWithDependents(String bundleId){
+        return stopWithDependents(bundleId, false);
+    }
+
+    @Override
+    public Map<String, BundleOperationResult> uninstallWithDependents(String bundleId){
+        return stopWithDependents(bundleId, true);
+    }
+
+    /**
+     * Stop the bundle with the given id and its transitive dependents, from the dependents to the bundle. The
+     * independent branches of the dependents are stopped in parallel. If asked, the stopped bundles are then
+     * uninstalled and the framework is refreshed once. If the stop of the dependents does not finish in time, nothing
+     * is uninstalled and the bundles which were not stopped are reported as failed.
+     *
+     * @param bundleId Id of the bundle with the pattern : groupId:artifactId
+     * @param uninstall True to uninstall the bundles once stopped, false otherwise.
+     *
+     * @return The result of the operation on each bundle, with the symbolic name as key, in the stop order.
+     */
+    private Map<String, BundleOperationResult> stopWithDependents(String bundleId, boolean uninstall){
+        String symbolicName = getSymbolicName(bundleId);
+        if(symbolicName == null){
+            return Collections.singletonMap(bundleId, new BundleOperationResult(bundleId,
+                    BundleOperationResult.Status.FAILED,
+                    "The id of the bundle should have the following pattern : groupId:artifactId"));
+        }
+        Bundle root = bundleRegistry.getBundle(symbolicName);
+        if(root == null){
+            return Collections.singletonMap(bundleId, new BundleOperationResult(bundleId,
+                    BundleOperationResult.Status.NOT_INSTALLED, "The bundle '"+symbolicName+"' is not installed yet"));
+        }
+        BundleDependents dependents = new BundleDependents(root);
+        List<String> symbolicNames = new ArrayList<>();
+        dependents.getStopOrder().forEach(bundle -> symbolicNames.add(bundle.getSymbolicName()));
+        List<ReentrantLock> locks = bundleLocks.lockAll(symbolicNames);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(DEPENDENTS_THREAD_COUNT, symbolicNames.size()));
+        try {
+            Map<String, BundleOperationResult> resultMap = new ConcurrentHashMap<>();
+            Set<String> stopped = ConcurrentHashMap.newKeySet();
+            String stopError = null;
+            try {
+                dependents.runInStopOrder(bundle -> {
+                    if(bundle.getHeaders().get(Constants.FRAGMENT_HOST) == null){
+                        try {
+                            bundle.stop();
+                        } catch (BundleException | IllegalStateException e) {
+                            resultMap.put(bundle.getSymbolicName(), new BundleOperationResult(bundle.getSymbolicName(),
+                                    BundleOperationResult.Status.FAILED,
+                                    "Unable to stop the bundle : "+e.getLocalizedMessage()));
+                            return;
                         }
-                        return bundleItem.isUninstalled();
                     }
+                    stopped.add(bundle.getSymbolicName());
+                }, executor).get(DEPENDENTS_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopError = "Interrupted while stopping the dependents of the bundle '"+symbolicName+"'";
+            } catch (ExecutionException | TimeoutException e) {
+                LOGGER.error("Unable to stop the dependents of the bundle '"+symbolicName+"'.\n"+
+                        e.getLocalizedMessage());
+                stopError = "Unable to stop the dependents of the bundle '"+symbolicName+"' : "+
+                        e.getLocalizedMessage();
+            }
+            //If the stop did not finish, some bundles may still be running, so nothing is uninstalled
+            if(stopError != null){
+                for(Bundle bundle : dependents.getStopOrder()){
+                    String name = bundle.getSymbolicName();
+                    if(!stopped.contains(name)){
+                        resultMap.putIfAbsent(name, new BundleOperationResult(name,
+                                BundleOperationResult.Status.FAILED, stopError));
+                    }
+                    else{
+                        resultMap.put(name, new BundleOperationResult(name, BundleOperationResult.Status.SUCCESS,
+                                "Bundle '"+name+"' stopped"+(uninstall ? " but not uninstalled" : "")));
+                    }
+                }
+                return getOrderedResults(symbolicNames, new HashMap<>(resultMap));
+            }
+            List<Bundle> uninstalled = new ArrayList<>();
+            for(Bundle bundle : dependents.getStopOrder()){
+                String name = bundle.getSymbolicName();
+                if(resultMap.containsKey(name)){
+                    continue;
+                }
+                if(uninstall){
+                    try {
+                        bundle.uninstall();
+                        uninstalled.add(bundle);
+                        resultMap.put(name, new BundleOperationResult(name, BundleOperationResult.Status.SUCCESS,
+                                "Bundle '"+name+"' uninstalled"));
+                    } catch (BundleException | IllegalStateException e) {
+                        resultMap.put(name, new BundleOperationResult(name, BundleOperationResult.Status.FAILED,
+                                "Unable to uninstall the bundle : "+e.getLocalizedMessage()));
+                    }
+                }
+                else if(bundle.getState() == Bundle.ACTIVE || bundle.getState() == Bundle.STOPPING){
+                    resultMap.put(name, new BundleOperationResult(name, BundleOperationResult.Status.FAILED,
+                            "Bundle '"+name+"' not stopped"));
+                }
+                else{
+                    resultMap.put(name, new BundleOperationResult(name, BundleOperationResult.Status.SUCCESS,
+                            "Bundle '"+name+"' stopped"));
                 }
             }
+            if(!uninstalled.isEmpty()){
+                try {
+                    refreshBundles(uninstalled).get(REFRESH_TIMEOUT, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException | TimeoutException e) {
+                    LOGGER.error("Unable to refresh the framework after the uninstallation.\n"+
+                            e.getLocalizedMessage());
+                }
+            }
+            return getOrderedResults(symbolicNames, new HashMap<>(resultMap));
+        } finally {
+            executor.shutdownNow();
+            bundleLocks.unlockAll(locks);
+        }
+    }
+
+    /**
+     * Add all the given resources to a single resolver, resolve them and deploy them at once. If the resolution
+     * fails, the resources with unsatisfied requirements are reported as failed and the other ones are resolved
+     * again without them. The OBR requirements are new wrapper objects on each call, so they are matched on their
+     * name and filter. If no requested resource has an unsatisfied requirement itself, the failure comes from a
+     * transitive dependency and each resource is resolved alone to find the ones depending on it. If a plan of the
+     * same resources on the same framework is cached, it is deployed without resolution.
+     *
+     * @param resourceMap Resources to deploy with their bundle id as key.
+     * @param resultMap Map where the failed operations are reported.
+     */
+    private void deploy(Map<String, Resource> resourceMap, Map<String, BundleOperationResult> resultMap){
+        Map<String, Resource> toDeploy = new LinkedHashMap<>(resourceMap);
+        String key = resolutionCache.getKey(toDeploy.values());
+        List<Resource> plan = resolutionCache.get(key);
+        if(plan != null) {
+            if(resolutionCache.deploy(plan, false)) {
+                LOGGER.debug("Bundles deployed from the cached resolution plan");
+                return;
+            }
+            resolutionCache.remove(key);
+        }
+        Resolver resolver = repositoryAdmin.resolver();
+        toDeploy.values().forEach(resolver::add);
+        while(!resolver.resolve()){
+            if(!removeUnsatisfied(toDeploy, resolver.getUnsatisfiedRequirements(), resultMap) &&
+                    !removeUnresolvable(toDeploy, resultMap)){
+                for(String bundleId : toDeploy.keySet()){
+                    resultMap.put(bundleId, new BundleOperationResult(bundleId, BundleOperationResult.Status.FAILED,
+                            "Unable to resolve the dependencies of the bundle"));
+                }
+                return;
+            }
+            if(toDeploy.isEmpty()){
+                return;
+            }
+            resolver = repositoryAdmin.resolver();
+            toDeploy.values().forEach(resolver::add);
+        }
+        key = resolutionCache.getKey(toDeploy.values());
+        try {
+            resolver.deploy(false);
+            resolutionCache.put(key, resolver);
+        } catch (IllegalStateException e){
+            LOGGER.error("Unable to deploy the bundles.\n"+e.getLocalizedMessage());
+            for(String bundleId : toDeploy.keySet()){
+                resultMap.put(bundleId, new BundleOperationResult(bundleId, BundleOperationResult.Status.FAILED,
+                        "Unable to deploy the bundle : "+e.getLocalizedMessage()));
+            }
+        }
+    }
+
+    /**
+     * Remove from the given resources the ones having one of the given unsatisfied requirements and report them as
+     * failed.
+     *
+     * @param toDeploy Resources to deploy with their bundle id as key.
+     * @param unsatisfied Unsatisfied requirements of the resolution.
+     * @param resultMap Map where the failed operations are reported.
+     *
+     * @return True if a resource has been removed, false otherwise.
+     */
+    private static boolean removeUnsatisfied(Map<String, Resource> toDeploy, Requirement[] unsatisfied,
+                                             Map<String, BundleOperationResult> resultMap){
+        Set<String> unsatisfiedKeys = new HashSet<>();
+        for(Requirement requirement : unsatisfied == null ? new Requirement[0] : unsatisfied){
+            unsatisfiedKeys.add(requirement.getName()+":"+requirement.getFilter());
+        }
+        boolean isRemoved = false;
+        for(Iterator<Map.Entry<String, Resource>> it = toDeploy.entrySet().iterator(); it.hasNext();){
+            Map.Entry<String, Resource> entry = it.next();
+            Requirement[] requirements = entry.getValue().getRequirements();
+            for(Requirement requirement : requirements == null ? new Requirement[0] : requirements){
+                if(unsatisfiedKeys.contains(requirement.getName()+":"+requirement.getFilter())){
+                    resultMap.put(entry.getKey(), new BundleOperationResult(entry.getKey(),
+                            BundleOperationResult.Status.FAILED, "Unsatisfied requirement : "+requirement.getFilter()));
+                    it.remove();
+                    isRemoved = true;
+                    break;
+                }
+            }
+        }
+        return isRemoved;
+    }
+
+    /**
+     * Resolve each of the given resources alone, then remove the ones which cannot be resolved and report them as
+     * failed with their unsatisfied requirements, which come from their transitive dependencies.
+     *
+     * @param toDeploy Resources to deploy with their bundle id as key.
+     * @param resultMap Map where the failed operations are reported.
+     *
+     * @return True if a resource has been removed, false otherwise.
+     */
+    private boolean removeUnresolvable(Map<String, Resource> toDeploy, Map<String, BundleOperationResult> resultMap){
+        boolean isRemoved = false;
+        for(Iterator<Map.Entry<String, Resource>> it = toDeploy.entrySet().iterator(); it.hasNext();){
+            Map.Entry<String, Resource> entry = it.next();
+            Resolver resolver = repositoryAdmin.resolver();
+            resolver.add(entry.getValue());
+            if(!resolver.resolve()){
+                StringJoiner filters = new StringJoiner(", ");
+                Requirement[] unsatisfied = resolver.getUnsatisfiedRequirements();
+                for(Requirement requirement : unsatisfied == null ? new Requirement[0] : unsatisfied){
+                    filters.add(requirement.getFilter());
+                }
+                resultMap.put(entry.getKey(), new BundleOperationResult(entry.getKey(),
+                        BundleOperationResult.Status.FAILED, "Unsatisfied requirement of a dependency : "+filters));
+                it.remove();
+                isRemoved = true;
+            }
+        }
+        return isRemoved;
+    }
+    /**
+     * Resolve all the given bundles at once, then start them. The result of each start is reported in the given map
+     * with the symbolic name of the bundle as key.
+     *
+     * @param bundles Bundles to start.
+     * @param resultMap Map where the results are reported with the bundle symbolic name as key.
+     */
+    private void startBundles(List<Bundle> bundles, Map<String, BundleOperationResult> resultMap){
+        if(bundles.isEmpty()){
+            return;
+        }
+        FrameworkWiring frameworkWiring = bundleContext.getBundle(Constants.SYSTEM_BUNDLE_ID)
+                .adapt(FrameworkWiring.class);
+        frameworkWiring.resolveBundles(bundles);
+        for(Bundle bundle : bundles){
+            String bundleId = bundle.getSymbolicName();
+            if(bundle.getState() != Bundle.ACTIVE){
+                try {
+                    bundle.start();
+                } catch (BundleException e) {
+                    resultMap.put(bundleId, new BundleOperationResult(bundleId, BundleOperationResult.Status.FAILED,
+                            "Unable to start the bundle : "+e.getLocalizedMessage()));
+                    continue;
+                }
+            }
+            LOGGER.debug("Bundle '"+bundle.getSymbolicName()+"' version '"+bundle.getVersion()+"' started");
+            resultMap.put(bundleId, new BundleOperationResult(bundleId, BundleOperationResult.Status.SUCCESS,
+                    "Bundle '"+bundle.getSymbolicName()+"' version '"+bundle.getVersion()+"' started"));
+        }
+    }
+
+    /**
+     * Refresh the given bundles with a single call to {@link FrameworkWiring#refreshBundles}, which also refreshes
+     * the bundles depending on them.
+     *
+     * @param bundles Bundles to refresh.
+     *
+     * @return A future completed once the framework has refreshed the bundles.
+     */
+    private CompletableFuture<Void> refreshBundles(Collection<Bundle> bundles){
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        FrameworkWiring frameworkWiring = bundleContext.getBundle(Constants.SYSTEM_BUNDLE_ID)
+                .adapt(FrameworkWiring.class);
+        frameworkWiring.refreshBundles(bundles, event -> {
+            if(event.getType() == FrameworkEvent.PACKAGES_REFRESHED){
+                future.complete(null);
+            }
+            else if(event.getType() == FrameworkEvent.ERROR){
+                LOGGER.error("Error while refreshing the bundle '"+event.getBundle().getSymbolicName()+"'",
+                        event.getThrowable());
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<BundleOperationResult> installAsync(String bundleId){
+        return submit(bundleId, () -> install(bundleId), "installed");
+    }
+
+    @Override
+    public CompletableFuture<BundleOperationResult> startAsync(String bundleId){
+        return submit(bundleId, () -> start(bundleId), "started");
+    }
+
+    @Override
+    public CompletableFuture<BundleOperationResult> updateAsync(String bundleId){
+        return submit(bundleId, () -> update(bundleId), "updated");
+    }
+
+    @Override
+    public CompletableFuture<BundleOperationResult> stopAsync(String bundleId){
+        return submit(bundleId, () -> stop(bundleId), "stopped");
+    }
+
+    @Override
+    public CompletableFuture<BundleOperationResult> uninstallAsync(String bundleId){
+        return submit(bundleId, () -> uninstall(bundleId), "uninstalled");
+    }
+
+    /**
+     * Submit an operation on the bundle with the given id to the asynchronous operation executor. The operations are
+     * chained by bundle symbolic name, so the operations on the same bundle keep their submission order.
+     *
+     * @param bundleId Id of the bundle with the pattern : groupId:artifactId
+     * @param operation Operation returning true on success.
+     * @param action Name of the action done by the operation, used in the result message.
+     *
+     * @return The future of the result of the operation.
+     */
+    private CompletableFuture<BundleOperationResult> submit(String bundleId, BooleanSupplier operation,
+                                                            String action){
+        String symbolicName = getSymbolicName(bundleId);
+        if(symbolicName == null){
+            return CompletableFuture.completedFuture(new BundleOperationResult(bundleId,
+                    BundleOperationResult.Status.FAILED,
+                    "The id of the bundle should have the following pattern : groupId:artifactId"));
+        }
+        BundleOperationExecutor executor = operationExecutor;
+        if(executor == null){
+            CompletableFuture<BundleOperationResult> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("The bundle utils component is not active"));
+            return future;
+        }
+        return executor.submit(symbolicName, () -> operation.getAsBoolean() ?
+                new BundleOperationResult(bundleId, BundleOperationResult.Status.SUCCESS, null) :
+                new BundleOperationResult(bundleId, BundleOperationResult.Status.FAILED,
+                        "The bundle '" + bundleId + "' has not been " + action));
+    }
+
+    /**
+     * Return the symbolic name of the bundle with the given id.
+     *
+     * @param bundleId Id of the bundle with the pattern : groupId:artifactId
+     *
+     * @return The symbolic name or null if the id does not have the right pattern.
+     */
+    private static String getSymbolicName(String bundleId){
+        String[] split = bundleId.split(":");
+        return split.length >= 2 ? split[0]+"."+split[1] : null;
+    }
+
+    /**
+     * Return the symbolic names of the bundles with the given ids which have the right pattern.
+     *
+     * @param bundleIds Ids of the bundles with the pattern : groupId:artifactId
+     *
+     * @return The symbolic names of the bundles.
+     */
+    private static List<String> getSymbolicNames(Collection<String> bundleIds){
+        List<String> symbolicNames = new ArrayList<>();
+        for(String bundleId : bundleIds){
+            String symbolicName = getSymbolicName(bundleId);
+            if(symbolicName != null){
+                symbolicNames.add(symbolicName);
+            }
+        }
+        return symbolicNames;
+    }
+
+    /**
+     * Return the results in the order of the given bundle ids. The results reported with the symbolic name of a
+     * bundle are associated to all the ids having this symbolic name.
+     *
+     * @param bundleIds Ids of the bundles.
+     * @param resultMap Results with the bundle id or the bundle symbolic name as key.
+     *
+     * @return The ordered results with the bundle id as key.
+     */
+    private static Map<String, BundleOperationResult> getOrderedResults(Collection<String> bundleIds,
+                                                                       Map<String, BundleOperationResult> resultMap){
+        Map<String, BundleOperationResult> orderedMap = new LinkedHashMap<>();
+        for(String bundleId : bundleIds){
+            BundleOperationResult result = resultMap.get(bundleId);
+            if(result == null){
+                BundleOperationResult bundleResult = resultMap.get(getSymbolicName(bundleId));
+                result = new BundleOperationResult(bundleId, bundleResult == null ?
+                        BundleOperationResult.Status.FAILED : bundleResult.getStatus(),
+                        bundleResult == null ? null : bundleResult.getMessage());
+            }
+            orderedMap.put(bundleId, result);
+        }
+        return orderedMap;
+    }
+
+    /**
+     * Wait for the end of the registration of the default OBR repositories, so a lookup done just after the
+     * activation of the component does not fail on an empty repository list.
+     */
+    private void awaitRepositories(){
+        try {
+            repositoriesReady.get(REPOSITORY_REGISTRATION_TIMEOUT, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException | CancellationException e) {
+            LOGGER.debug("The registration of the OBR repositories is not complete : " + e.getLocalizedMessage());
         }
-        return false;
+    }
+
+    @Override
+    public List<String> search(String text){
+        String lowerText = text == null ? "" : text.toLowerCase(Locale.ROOT);
+        Set<String> symbolicNames = new TreeSet<>();
+        for(ResourceIndex index : new ResourceIndex[]{resourceIndex, snapshotIndex}) {
+            for(String symbolicName : index.getSymbolicNames()) {
+                if(symbolicName.toLowerCase(Locale.ROOT).contains(lowerText)) {
+                    symbolicNames.add(symbolicName);
+                }
+            }
+        }
+        return new ArrayList<>(symbolicNames);
+    }
+
+    @Override
+    public CompletableFuture<Void> getRepositoriesReady(){
+        return repositoriesReady.thenApply(ignored -> null);
+    }
+
+    /**
+     * Return the resource with the given symbolic name and the highest version from the OBR repositories. The index
+     * of the resources is first updated with the repositories added or modified since the last lookup.
+     *
+     * @param symbolicName Symbolic name of the resource.
+     *
+     * @return The resource with the highest version or null if not found.
+     */
+    private Resource findResource(String symbolicName){
+        awaitRepositories();
+        resourceIndex.update(repositoryAdmin.listRepositories());
+        return resourceIndex.getHighestVersion(symbolicName);
     }
 
     @Override
@@ -293,7 +1029,7 @@ public class BundleUtils implements IBundleUtils, ISyntaxObject {
             LOGGER.warn("The URL '" + url + "' doesn't seems to be a valid OBR repository");
         }
         try {
-            repositoryAdmin.addRepository(new URL(url));
+            resourceIndex.addRepository(repositoryAdmin.addRepository(new URL(url)));
         } catch (MalformedURLException e) {
             LOGGER.error("Unable to generate the URL '"+url+"'");
         } catch (Exception e) {
@@ -326,30 +1062,152 @@ public class BundleUtils implements IBundleUtils, ISyntaxObject {
         return NAME;
     }
 
-    private class RegisterRepositories implements Runnable {
+    /**
+     * Return a file of the repository with the given URI, like its snapshot or its index, in the data folder of the
+     * bundle.
+     *
+     * @param serverURI URI of the repository.
+     * @param extension Extension of the file.
+     *
+     * @return The file or null if the framework has no file system support.
+     */
+    private File getRepositoryDataFile(URI serverURI, String extension){
+        return bundleContext.getDataFile("obr-" +
+                UUID.nameUUIDFromBytes(serverURI.toString().getBytes(StandardCharsets.UTF_8)) + extension);
+    }
 
-        List<URI> serverURIList;
+    /**
+     * Registration of one OBR repository. The repository index is requested with a conditional GET request with
+     * connect and read timeouts, so an unreachable host is detected quickly without waiting for the timeouts of the
+     * system. If the index has not changed, the copy downloaded at the previous start is parsed instead of being
+     * downloaded again and the snapshot of the repository is kept.
+     */
+    private class RegisterRepository implements Runnable {
+
+        URI serverURI;
+        File snapshotFile;
+        File indexFile;
+        RepositorySnapshot snapshot;
 
-        public RegisterRepositories(List<URI> serverURIList){
-            this.serverURIList = serverURIList;
+        public RegisterRepository(URI serverURI, File snapshotFile, File indexFile, RepositorySnapshot snapshot){
+            this.serverURI = serverURI;
+            this.snapshotFile = snapshotFile;
+            this.indexFile = indexFile;
+            this.snapshot = snapshot;
         }
 
         @Override
         public void run() {
-            for(URI serverURI : serverURIList) {
+            try {
+                URL url = serverURI.toURL();
+                URLConnection connection = url.openConnection();
+                if(!(connection instanceof HttpURLConnection)) {
+                    register(url, true, null, null);
+                    return;
+                }
+                HttpURLConnection httpConnection = (HttpURLConnection) connection;
+                httpConnection.setConnectTimeout(REPOSITORY_CONNECT_TIMEOUT);
+                httpConnection.setReadTimeout(REPOSITORY_READ_TIMEOUT);
+                //The request is only conditional if the index of the previous start can be parsed again
+                byte[] index = snapshot == null ? null : readIndex();
+                if(index != null && snapshot.getETag() != null) {
+                    httpConnection.setRequestProperty("If-None-Match", snapshot.getETag());
+                }
+                if(index != null && snapshot.getHttpLastModified() != null) {
+                    httpConnection.setRequestProperty("If-Modified-Since", snapshot.getHttpLastModified());
+                }
                 try {
-                    repositoryAdmin.addRepository(serverURI.toURL());
-                } catch (Exception ex) {
-                    //Tests if the exception is because of a problem accessing to the OrbisGIS nexus.
-                    if (ex.getCause() instanceof UnknownHostException &&
-                            ex.getCause().getMessage().equals(serverURI.getAuthority())) {
-                        LOGGER.error("Unable to access to " + serverURI.getAuthority() +
-                                ". Please check your internet connexion.");
-                    } else {
-                        LOGGER.error(ex.getLocalizedMessage(), ex);
+                    int responseCode = httpConnection.getResponseCode();
+                    if(responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && index != null) {
+                        LOGGER.debug("The snapshot of the repository '" + serverURI + "' is up to date");
+                        register(RepositoryIndexHandler.createURL(url, index), false, null, null);
                     }
+                    else if(responseCode >= 400 || responseCode == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                        LOGGER.error("Unable to access to the repository '" + serverURI + "' : HTTP " + responseCode);
+                    }
+                    else {
+                        try(InputStream in = httpConnection.getInputStream()) {
+                            index = in.readAllBytes();
+                        }
+                        writeIndex(index);
+                        register(RepositoryIndexHandler.createURL(url, index), true,
+                                httpConnection.getHeaderField("ETag"), httpConnection.getHeaderField("Last-Modified"));
+                    }
+                } finally {
+                    httpConnection.disconnect();
+                }
+            } catch (Exception ex) {
+                //Tests if the exception is because of a problem accessing to the OrbisGIS nexus.
+                Throwable cause = ex instanceof UnknownHostException ? ex : ex.getCause();
+                if (cause instanceof UnknownHostException &&
+                        serverURI.getHost().equals(cause.getMessage())) {
+                    LOGGER.error("Unable to access to " + serverURI.getAuthority() +
+                            ". Please check your internet connexion.");
+                } else {
+                    LOGGER.error("Unable to add the repository '" + serverURI + "' : " + ex.getLocalizedMessage(),
+                            ex);
+                }
+            }
+        }
+
+        /**
+         * Parse the repository index from the given URL, add the repository to the index of the resources and write
+         * its snapshot if the index has changed.
+         *
+         * @param url URL of the repository index, which may serve an already downloaded content.
+         * @param isModified True if the index has changed since the snapshot was written, false otherwise.
+         * @param etag ETag header of the repository index, can be null.
+         * @param lastModified Last-Modified header of the repository index, can be null.
+         *
+         * @throws Exception Exception thrown if the repository cannot be parsed.
+         */
+        private void register(URL url, boolean isModified, String etag, String lastModified) throws Exception {
+            Repository repository = repositoryAdmin.addRepository(url);
+            resourceIndex.addRepository(repository);
+            if(repository != null && snapshotFile != null && (isModified || snapshot == null)) {
+                try {
+                    RepositorySnapshot.write(snapshotFile, repository, etag, lastModified);
+                } catch (IOException e) {
+                    LOGGER.warn("Unable to write the snapshot of the repository '" + serverURI + "'", e);
                 }
             }
         }
+
+        /**
+         * Read the repository index downloaded at the previous start.
+         *
+         * @return The content of the index or null if it cannot be read.
+         */
+        private byte[] readIndex() {
+            if(indexFile == null || !indexFile.isFile()) {
+                return null;
+            }
+            try {
+                return Files.readAllBytes(indexFile.toPath());
+            } catch (IOException e) {
+                LOGGER.debug("Unable to read the index of the repository '" + serverURI + "'", e);
+                return null;
+            }
+        }
+
+        /**
+         * Write the downloaded repository index, so it can be parsed again at the next start if it has not changed.
+         * The file is first written next to the target and then moved, so an index file is always complete.
+         *
+         * @param index Content of the repository index.
+         */
+        private void writeIndex(byte[] index) {
+            if(indexFile == null) {
+                return;
+            }
+            File tmpFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+            try {
+                Files.write(tmpFile.toPath(), index);
+                Files.move(tmpFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to write the index of the repository '" + serverURI + "'", e);
+            }
+        }
     }
 }
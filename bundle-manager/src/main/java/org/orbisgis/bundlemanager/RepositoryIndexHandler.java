@@ -0,0 +1,106 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+
+/**
+ * {@link java.net.URLStreamHandler} serving an already downloaded OBR repository index.
+ *
+ * The {@link org.osgi.service.obr.RepositoryAdmin} only reads a repository from its URL. The URL created by this
+ * handler keeps the address of the repository, so the relative resource URLs and the repository key stay the same,
+ * but reading it returns the given index content instead of downloading it again. Any other URL opened through this
+ * handler, like the one of a resource resolved against the repository URL, is opened with the default handler.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class RepositoryIndexHandler extends URLStreamHandler {
+
+    /** Address of the repository index. */
+    private final String indexAddress;
+    /** Content of the repository index. */
+    private final byte[] index;
+
+    private RepositoryIndexHandler(String indexAddress, byte[] index) {
+        this.indexAddress = indexAddress;
+        this.index = index;
+    }
+
+    /**
+     * Create an URL with the same address as the given repository URL, which reads the given index content.
+     *
+     * @param url URL of the repository index.
+     * @param index Content of the repository index.
+     *
+     * @return The URL reading the given content.
+     *
+     * @throws MalformedURLException Exception thrown if the URL cannot be created again.
+     */
+    static URL createURL(URL url, byte[] index) throws MalformedURLException {
+        return new URL(null, url.toExternalForm(), new RepositoryIndexHandler(url.toExternalForm(), index));
+    }
+
+    @Override
+    protected URLConnection openConnection(URL url) throws IOException {
+        if(!indexAddress.equals(url.toExternalForm())) {
+            return new URL(url.toExternalForm()).openConnection();
+        }
+        return new URLConnection(url) {
+            @Override
+            public void connect() {
+                connected = true;
+            }
+
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(index);
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return index.length;
+            }
+        };
+    }
+}
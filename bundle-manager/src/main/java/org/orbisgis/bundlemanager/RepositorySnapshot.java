@@ -0,0 +1,462 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.osgi.framework.Filter;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.Version;
+import org.osgi.service.obr.Capability;
+import org.osgi.service.obr.Repository;
+import org.osgi.service.obr.Requirement;
+import org.osgi.service.obr.Resource;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary snapshot of a parsed OBR repository : the symbolic names, versions, URLs, capabilities and requirements of its
+ * resources.
+ *
+ * The snapshot is written once the repository has been parsed by the {@link org.osgi.service.obr.RepositoryAdmin} and
+ * is read memory-mapped on the next start, so the resources of the repository are known without downloading and
+ * parsing its XML index again. The snapshot also keeps the HTTP validators (ETag and Last-Modified) of the index, used
+ * to check with a conditional request if the snapshot is still up to date.
+ *
+ * The resources of a snapshot can not be deployed by the OBR resolver, which only accepts the resources of the
+ * repositories of the {@link org.osgi.service.obr.RepositoryAdmin}.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class RepositorySnapshot implements Repository {
+
+    /** Magic number at the beginning of a snapshot file. */
+    private static final int MAGIC = 0x4F425253;
+    /** Version of the snapshot format. */
+    private static final int FORMAT_VERSION = 1;
+
+    private final URL url;
+    private final String name;
+    private final long lastModified;
+    private final String etag;
+    private final String httpLastModified;
+    private final Resource[] resources;
+
+    private RepositorySnapshot(URL url, String name, long lastModified, String etag, String httpLastModified,
+                               Resource[] resources) {
+        this.url = url;
+        this.name = name;
+        this.lastModified = lastModified;
+        this.etag = etag;
+        this.httpLastModified = httpLastModified;
+        this.resources = resources;
+    }
+
+    @Override
+    public URL getURL() {
+        return url;
+    }
+
+    @Override
+    public Resource[] getResources() {
+        return resources.clone();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Return the ETag header of the repository index when the snapshot was written.
+     *
+     * @return The ETag or null if the server did not give one.
+     */
+    String getETag() {
+        return etag;
+    }
+
+    /**
+     * Return the Last-Modified header of the repository index when the snapshot was written.
+     *
+     * @return The Last-Modified header or null if the server did not give one.
+     */
+    String getHttpLastModified() {
+        return httpLastModified;
+    }
+
+    /**
+     * Write the snapshot of the given repository into the given file. The file is first written next to the target
+     * and then moved, so a snapshot file is always complete.
+     *
+     * @param file Snapshot file.
+     * @param repository Repository parsed by the RepositoryAdmin.
+     * @param etag ETag header of the repository index, can be null.
+     * @param httpLastModified Last-Modified header of the repository index, can be null.
+     *
+     * @throws IOException Exception thrown if the file can not be written.
+     */
+    static void write(File file, Repository repository, String etag, String httpLastModified) throws IOException {
+        File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, repository.getURL().toString());
+            writeString(out, repository.getName());
+            out.writeLong(repository.getLastModified());
+            writeString(out, etag);
+            writeString(out, httpLastModified);
+            Resource[] resources = repository.getResources();
+            if(resources == null) {
+                resources = new Resource[0];
+            }
+            out.writeInt(resources.length);
+            for(Resource resource : resources) {
+                writeString(out, resource.getId());
+                writeString(out, resource.getSymbolicName());
+                writeString(out, resource.getVersion() == null ? null : resource.getVersion().toString());
+                writeString(out, resource.getPresentationName());
+                writeString(out, resource.getURL() == null ? null : resource.getURL().toString());
+                writeMap(out, resource.getProperties());
+                String[] categories = resource.getCategories() == null ? new String[0] : resource.getCategories();
+                out.writeInt(categories.length);
+                for(String category : categories) {
+                    writeString(out, category);
+                }
+                Capability[] capabilities = resource.getCapabilities() == null ?
+                        new Capability[0] : resource.getCapabilities();
+                out.writeInt(capabilities.length);
+                for(Capability capability : capabilities) {
+                    writeString(out, capability.getName());
+                    writeMap(out, capability.getProperties());
+                }
+                Requirement[] requirements = resource.getRequirements() == null ?
+                        new Requirement[0] : resource.getRequirements();
+                out.writeInt(requirements.length);
+                for(Requirement requirement : requirements) {
+                    writeString(out, requirement.getName());
+                    writeString(out, requirement.getFilter());
+                    writeString(out, requirement.getComment());
+                    out.writeByte((requirement.isMultiple() ? 1 : 0) | (requirement.isOptional() ? 2 : 0) |
+                            (requirement.isExtend() ? 4 : 0));
+                }
+            }
+        }
+        Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read the snapshot from the given file, which is memory-mapped.
+     *
+     * @param file Snapshot file.
+     *
+     * @return The snapshot or null if the file does not exist or is not a valid snapshot.
+     */
+    static RepositorySnapshot read(File file) {
+        if(file == null || !file.isFile()) {
+            return null;
+        }
+        try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if(buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            URL url = new URL(readString(buffer));
+            String name = readString(buffer);
+            long lastModified = buffer.getLong();
+            String etag = readString(buffer);
+            String httpLastModified = readString(buffer);
+            Resource[] resources = new Resource[buffer.getInt()];
+            RepositorySnapshot snapshot = new RepositorySnapshot(url, name, lastModified, etag, httpLastModified,
+                    resources);
+            for(int i = 0; i < resources.length; i++) {
+                String id = readString(buffer);
+                String symbolicName = readString(buffer);
+                String version = readString(buffer);
+                String presentationName = readString(buffer);
+                String resourceUrl = readString(buffer);
+                Map<String, String> properties = readMap(buffer);
+                String[] categories = new String[buffer.getInt()];
+                for(int j = 0; j < categories.length; j++) {
+                    categories[j] = readString(buffer);
+                }
+                Capability[] capabilities = new Capability[buffer.getInt()];
+                for(int j = 0; j < capabilities.length; j++) {
+                    capabilities[j] = new SnapshotCapability(readString(buffer), readMap(buffer));
+                }
+                Requirement[] requirements = new Requirement[buffer.getInt()];
+                for(int j = 0; j < requirements.length; j++) {
+                    String requirementName = readString(buffer);
+                    String filter = readString(buffer);
+                    String comment = readString(buffer);
+                    requirements[j] = new SnapshotRequirement(requirementName, filter, comment, buffer.get());
+                }
+                resources[i] = new SnapshotResource(snapshot, id, symbolicName,
+                        version == null ? Version.emptyVersion : Version.parseVersion(version), presentationName,
+                        resourceUrl == null ? null : new URL(resourceUrl), properties, categories, capabilities,
+                        requirements);
+            }
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if(value == null) {
+            out.writeInt(-1);
+        }
+        else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if(length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+        if(map == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(map.size());
+        for(Map.Entry<?, ?> entry : map.entrySet()) {
+            writeString(out, String.valueOf(entry.getKey()));
+            writeString(out, entry.getValue() == null ? null : entry.getValue().toString());
+        }
+    }
+
+    private static Map<String, String> readMap(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        Map<String, String> map = new HashMap<>(size * 2);
+        for(int i = 0; i < size; i++) {
+            map.put(readString(buffer), readString(buffer));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Resource read from a snapshot.
+     */
+    private static class SnapshotResource implements Resource {
+        private final Repository repository;
+        private final String id;
+        private final String symbolicName;
+        private final Version version;
+        private final String presentationName;
+        private final URL url;
+        private final Map<String, String> properties;
+        private final String[] categories;
+        private final Capability[] capabilities;
+        private final Requirement[] requirements;
+
+        private SnapshotResource(Repository repository, String id, String symbolicName, Version version,
+                                 String presentationName, URL url, Map<String, String> properties,
+                                 String[] categories, Capability[] capabilities, Requirement[] requirements) {
+            this.repository = repository;
+            this.id = id;
+            this.symbolicName = symbolicName;
+            this.version = version;
+            this.presentationName = presentationName;
+            this.url = url;
+            this.properties = properties;
+            this.categories = categories;
+            this.capabilities = capabilities;
+            this.requirements = requirements;
+        }
+
+        @Override
+        public Map getProperties() {
+            return properties;
+        }
+
+        @Override
+        public String getSymbolicName() {
+            return symbolicName;
+        }
+
+        @Override
+        public String getPresentationName() {
+            return presentationName;
+        }
+
+        @Override
+        public Version getVersion() {
+            return version;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public URL getURL() {
+            return url;
+        }
+
+        @Override
+        public Requirement[] getRequirements() {
+            return requirements.clone();
+        }
+
+        @Override
+        public Capability[] getCapabilities() {
+            return capabilities.clone();
+        }
+
+        @Override
+        public String[] getCategories() {
+            return categories.clone();
+        }
+
+        @Override
+        public Repository getRepository() {
+            return repository;
+        }
+    }
+
+    /**
+     * Capability read from a snapshot. Its property values are kept as strings.
+     */
+    private static class SnapshotCapability implements Capability {
+        private final String name;
+        private final Map<String, String> properties;
+
+        private SnapshotCapability(String name, Map<String, String> properties) {
+            this.name = name;
+            this.properties = properties;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public Map getProperties() {
+            return properties;
+        }
+    }
+
+    /**
+     * Requirement read from a snapshot.
+     */
+    private static class SnapshotRequirement implements Requirement {
+        private final String name;
+        private final String filter;
+        private final String comment;
+        private final byte flags;
+
+        private SnapshotRequirement(String name, String filter, String comment, byte flags) {
+            this.name = name;
+            this.filter = filter;
+            this.comment = comment;
+            this.flags = flags;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getFilter() {
+            return filter;
+        }
+
+        @Override
+        public boolean isMultiple() {
+            return (flags & 1) != 0;
+        }
+
+        @Override
+        public boolean isOptional() {
+            return (flags & 2) != 0;
+        }
+
+        @Override
+        public boolean isExtend() {
+            return (flags & 4) != 0;
+        }
+
+        @Override
+        public String getComment() {
+            return comment;
+        }
+
+        @Override
+        public boolean isSatisfied(Capability capability) {
+            if(capability == null || !Objects.equals(name, capability.getName())) {
+                return false;
+            }
+            if(filter == null) {
+                return true;
+            }
+            try {
+                Filter ldapFilter = FrameworkUtil.createFilter(filter);
+                return ldapFilter.matches(capability.getProperties());
+            } catch (InvalidSyntaxException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.service.obr.Repository;
+import org.osgi.service.obr.RepositoryAdmin;
+import org.osgi.service.obr.Resolver;
+import org.osgi.service.obr.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Cache of the resolution plans of the {@link org.osgi.service.obr.Resolver}.
+ *
+ * A plan is the list of the resources deployed for a set of requested resources. It is cached with a key built from
+ * the symbolic names and versions of the requested resources, a hash of the installed bundles and the last
+ * modification dates of the OBR repositories, so a plan is only reused on an identical framework. The whole cache is
+ * cleared when the repositories change and the least recently used plans are dropped.
+ *
+ * On a cache hit, the plan is deployed directly from the resource URLs, without resolving it again.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class ResolutionCache {
+
+    /** Logger */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolutionCache.class);
+    /** Maximum number of cached plans. */
+    private static final int CAPACITY = 64;
+
+    private final BundleContext bundleContext;
+    private final BundleRegistry registry;
+    private final RepositoryAdmin repositoryAdmin;
+    /** Cached plans with their key as key, in access order. */
+    private final Map<String, List<Resource>> planMap = new LinkedHashMap<String, List<Resource>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Resource>> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    /** Fingerprint of the repositories of the cached plans. */
+    private String repositoriesFingerprint;
+
+    /**
+     * Main constructor.
+     *
+     * @param bundleContext Context used to read the installed bundles and to install the bundles of a plan.
+     * @param registry Registry of the installed bundles.
+     * @param repositoryAdmin RepositoryAdmin providing the repositories.
+     */
+    ResolutionCache(BundleContext bundleContext, BundleRegistry registry, RepositoryAdmin repositoryAdmin) {
+        this.bundleContext = bundleContext;
+        this.registry = registry;
+        this.repositoryAdmin = repositoryAdmin;
+    }
+
+    /**
+     * Return the key of the resolution of the given requested resources on the current framework.
+     *
+     * @param requested Requested resources.
+     *
+     * @return The key of the resolution.
+     */
+    String getKey(Collection<Resource> requested) {
+        List<String> requestedList = new ArrayList<>();
+        for(Resource resource : requested) {
+            requestedList.add(resource.getSymbolicName() + ";" + resource.getVersion());
+        }
+        Collections.sort(requestedList);
+        List<String> installedList = new ArrayList<>();
+        for(Bundle bundle : bundleContext.getBundles()) {
+            installedList.add(bundle.getSymbolicName() + ";" + bundle.getVersion());
+        }
+        Collections.sort(installedList);
+        return hash(requestedList) + ":" + hash(installedList) + ":" + getRepositoriesFingerprint();
+    }
+
+    /**
+     * Return the cached plan with the given key.
+     *
+     * @param key Key of the resolution.
+     *
+     * @return The resources of the plan or null if there is no plan cached for the key.
+     */
+    synchronized List<Resource> get(String key) {
+        checkRepositories();
+        return planMap.get(key);
+    }
+
+    /**
+     * Cache the plan of the given resolver, which should have been successfully resolved.
+     *
+     * @param key Key of the resolution, computed before the deployment.
+     * @param resolver Resolved resolver.
+     */
+    synchronized void put(String key, Resolver resolver) {
+        checkRepositories();
+        List<Resource> plan = new ArrayList<>();
+        for(Resource[] resources : new Resource[][]{resolver.getAddedResources(), resolver.getRequiredResources(),
+                resolver.getOptionalResources()}) {
+            if(resources != null) {
+                plan.addAll(Arrays.asList(resources));
+            }
+        }
+        planMap.put(key, Collections.unmodifiableList(plan));
+    }
+
+    /**
+     * Remove the plan with the given key.
+     *
+     * @param key Key of the resolution.
+     */
+    synchronized void remove(String key) {
+        planMap.remove(key);
+    }
+
+    /**
+     * Deploy the given plan : the resources not installed yet are installed and the installed resources with another
+     * version are updated.
+     *
+     * @param plan Resources of the plan.
+     * @param start True to start the deployed bundles which are not fragments, false otherwise.
+     *
+     * @return True if the plan has been deployed, false otherwise.
+     */
+    boolean deploy(List<Resource> plan, boolean start) {
+        List<Bundle> deployed = new ArrayList<>();
+        try {
+            for(Resource resource : plan) {
+                Bundle bundle = registry.getBundle(resource.getSymbolicName());
+                if(bundle != null && bundle.getVersion().equals(resource.getVersion())) {
+                    continue;
+                }
+                if(bundle != null) {
+                    try(InputStream in = resource.getURL().openStream()) {
+                        bundle.update(in);
+                    }
+                }
+                else {
+                    bundle = bundleContext.installBundle(resource.getURL().toString());
+                }
+                deployed.add(bundle);
+            }
+            if(start) {
+                for(Bundle bundle : deployed) {
+                    if(bundle.getHeaders().get(Constants.FRAGMENT_HOST) == null) {
+                        bundle.start();
+                    }
+                }
+            }
+            return true;
+        } catch (BundleException | IOException | RuntimeException e) {
+            LOGGER.warn("Unable to deploy the cached resolution plan.\n" + e.getLocalizedMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Clear the cache if the repositories have changed since the last access.
+     */
+    private void checkRepositories() {
+        String fingerprint = getRepositoriesFingerprint();
+        if(!fingerprint.equals(repositoriesFingerprint)) {
+            planMap.clear();
+            repositoriesFingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Return the fingerprint of the current repositories, built from their URLs and last modification dates.
+     *
+     * @return The fingerprint of the repositories.
+     */
+    private String getRepositoriesFingerprint() {
+        List<String> repositoryList = new ArrayList<>();
+        Repository[] repositories = repositoryAdmin.listRepositories();
+        for(Repository repository : repositories == null ? new Repository[0] : repositories) {
+            repositoryList.add(repository.getURL() + ";" + repository.getLastModified());
+        }
+        Collections.sort(repositoryList);
+        return hash(repositoryList);
+    }
+
+    private static String hash(List<String> values) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for(String value : values) {
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            StringBuilder sb = new StringBuilder();
+            for(byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.osgi.service.obr.Repository;
+import org.osgi.service.obr.Resource;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the {@link org.osgi.service.obr.Resource} of the OBR repositories by symbolic name.
+ *
+ * For each symbolic name, the index keeps the resources sorted from the highest version to the lowest one, so a
+ * lookup only costs a map access. The index is updated repository by repository : a repository is indexed again only
+ * when it is added or when its last modification date changes, and the resources of the removed repositories are
+ * dropped.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class ResourceIndex {
+
+    /** Order of the resources, from the highest version to the lowest. */
+    private static final Comparator<Resource> VERSION_ORDER =
+            Comparator.comparing(Resource::getVersion, Comparator.reverseOrder());
+
+    /** Resources sorted by version with their symbolic name as key. The lists are never modified once indexed. */
+    private final Map<String, List<Resource>> resourceMap = new ConcurrentHashMap<>();
+    /** Indexed resources of each repository, with the repository URL as key. */
+    private final Map<String, Resource[]> repositoryResourceMap = new HashMap<>();
+    /** Last modification date of each indexed repository, with the repository URL as key. */
+    private final Map<String, Long> repositoryLastModifiedMap = new HashMap<>();
+
+    /**
+     * Update the index with the given repositories : the new and modified repositories are indexed and the
+     * repositories not in the given array are removed from the index.
+     *
+     * @param repositories Current repositories.
+     */
+    synchronized void update(Repository[] repositories) {
+        Set<String> urls = new HashSet<>();
+        for(Repository repository : repositories) {
+            String url = repository.getURL().toString();
+            urls.add(url);
+            Long lastModified = repositoryLastModifiedMap.get(url);
+            if(lastModified == null || lastModified != repository.getLastModified()) {
+                addRepository(repository);
+            }
+        }
+        for(String url : new ArrayList<>(repositoryResourceMap.keySet())) {
+            if(!urls.contains(url)) {
+                removeRepository(url);
+            }
+        }
+    }
+
+    /**
+     * Add the resources of the given repository to the index. If the repository was already indexed, its previous
+     * resources are replaced.
+     *
+     * @param repository Repository to index, can be null.
+     */
+    synchronized void addRepository(Repository repository) {
+        if(repository == null) {
+            return;
+        }
+        String url = repository.getURL().toString();
+        removeRepository(url);
+        Resource[] resources = repository.getResources();
+        if(resources == null) {
+            resources = new Resource[0];
+        }
+        Map<String, List<Resource>> added = new HashMap<>();
+        for(Resource resource : resources) {
+            if(resource.getSymbolicName() != null) {
+                added.computeIfAbsent(resource.getSymbolicName(), name -> new ArrayList<>()).add(resource);
+            }
+        }
+        added.forEach((symbolicName, list) -> {
+            List<Resource> indexed = resourceMap.get(symbolicName);
+            if(indexed != null) {
+                list.addAll(indexed);
+            }
+            list.sort(VERSION_ORDER);
+            resourceMap.put(symbolicName, Collections.unmodifiableList(list));
+        });
+        repositoryResourceMap.put(url, resources);
+        repositoryLastModifiedMap.put(url, repository.getLastModified());
+    }
+
+    /**
+     * Remove from the index the resources of the repository with the given URL.
+     *
+     * @param url URL of the repository.
+     */
+    private void removeRepository(String url) {
+        Resource[] resources = repositoryResourceMap.remove(url);
+        repositoryLastModifiedMap.remove(url);
+        if(resources == null) {
+            return;
+        }
+        Set<Resource> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(Arrays.asList(resources));
+        Set<String> symbolicNames = new HashSet<>();
+        for(Resource resource : resources) {
+            if(resource.getSymbolicName() != null) {
+                symbolicNames.add(resource.getSymbolicName());
+            }
+        }
+        for(String symbolicName : symbolicNames) {
+            List<Resource> list = new ArrayList<>(resourceMap.getOrDefault(symbolicName, Collections.emptyList()));
+            list.removeIf(removed::contains);
+            if(list.isEmpty()) {
+                resourceMap.remove(symbolicName);
+            }
+            else {
+                resourceMap.put(symbolicName, Collections.unmodifiableList(list));
+            }
+        }
+    }
+
+    /**
+     * Return the resources with the given symbolic name, sorted from the highest version to the lowest.
+     *
+     * @param symbolicName Symbolic name of the resources.
+     *
+     * @return The resources with the given symbolic name, empty if there is none.
+     */
+    List<Resource> getResources(String symbolicName) {
+        return resourceMap.getOrDefault(symbolicName, Collections.emptyList());
+    }
+
+    /**
+     * Return the symbolic names of the indexed resources.
+     *
+     * @return The indexed symbolic names.
+     */
+    Set<String> getSymbolicNames() {
+        return Collections.unmodifiableSet(resourceMap.keySet());
+    }
+
+    /**
+     * Return the resource with the given symbolic name and the highest version.
+     *
+     * @param symbolicName Symbolic name of the resource.
+     *
+     * @return The resource with the highest version or null if there is no resource with the given symbolic name.
+     */
+    Resource getHighestVersion(String symbolicName) {
+        List<Resource> resources = getResources(symbolicName);
+        return resources.isEmpty() ? null : resources.get(0);
+    }
+}
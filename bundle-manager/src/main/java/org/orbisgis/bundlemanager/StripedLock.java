@@ -0,0 +1,122 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Set of locks shared by key stripes : each key, like a bundle symbolic name, is always associated to the same lock,
+ * so the operations on the same key are linearized while the operations on keys of different stripes run in
+ * parallel. The number of locks is fixed, whatever the number of keys.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class StripedLock {
+
+    private final ReentrantLock[] locks;
+
+    /**
+     * Main constructor.
+     *
+     * @param stripes Number of stripes, rounded up to a power of two.
+     */
+    StripedLock(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for(int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Return the index of the stripe of the given key.
+     *
+     * @param key Key, can be null.
+     *
+     * @return The index of the stripe.
+     */
+    private int indexOf(String key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (locks.length - 1);
+    }
+
+    /**
+     * Return the lock of the given key.
+     *
+     * @param key Key, can be null.
+     *
+     * @return The lock of the key.
+     */
+    ReentrantLock get(String key) {
+        return locks[indexOf(key)];
+    }
+
+    /**
+     * Acquire the locks of all the given keys. The locks are always acquired in the order of their stripes, so two
+     * threads locking overlapping keys can not deadlock.
+     *
+     * @param keys Keys to lock.
+     *
+     * @return The acquired locks, to give to {@link #unlockAll(List)}.
+     */
+    List<ReentrantLock> lockAll(Collection<String> keys) {
+        SortedSet<Integer> indexes = new TreeSet<>();
+        for(String key : keys) {
+            indexes.add(indexOf(key));
+        }
+        List<ReentrantLock> acquired = new ArrayList<>(indexes.size());
+        for(int index : indexes) {
+            locks[index].lock();
+            acquired.add(locks[index]);
+        }
+        return acquired;
+    }
+
+    /**
+     * Release the given locks acquired with {@link #lockAll(Collection)}.
+     *
+     * @param acquired Acquired locks.
+     */
+    void unlockAll(List<ReentrantLock> acquired) {
+        for(int i = acquired.size() - 1; i >= 0; i--) {
+            acquired.get(i).unlock();
+        }
+    }
+}
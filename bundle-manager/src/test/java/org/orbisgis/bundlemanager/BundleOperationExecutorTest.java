@@ -0,0 +1,85 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.junit.jupiter.api.Test;
+import org.orbisgis.bundlemanagerapi.BundleOperationResult;
+
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.bundlemanager.BundleOperationExecutor} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class BundleOperationExecutorTest {
+
+    @Test
+    void shutdownTest() throws InterruptedException {
+        BundleOperationExecutor executor = new BundleOperationExecutor(1, 1, TimeUnit.MINUTES);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<BundleOperationResult> running = executor.submit("bundle", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {}
+            return new BundleOperationResult("bundle", BundleOperationResult.Status.SUCCESS, null);
+        });
+        CompletableFuture<BundleOperationResult> chained = executor.submit("bundle",
+                () -> new BundleOperationResult("bundle", BundleOperationResult.Status.SUCCESS, null));
+        CompletableFuture<BundleOperationResult> queued = executor.submit("other",
+                () -> new BundleOperationResult("other", BundleOperationResult.Status.SUCCESS, null));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        executor.shutdown();
+        //The pending operations are cancelled instead of waiting forever
+        for(CompletableFuture<BundleOperationResult> future : new CompletableFuture[]{running, chained, queued}) {
+            assertThrows(CancellationException.class, () -> future.get(10, TimeUnit.SECONDS));
+        }
+        release.countDown();
+
+        //The new operations are rejected
+        CompletableFuture<BundleOperationResult> rejected = executor.submit("bundle",
+                () -> new BundleOperationResult("bundle", BundleOperationResult.Status.SUCCESS, null));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(10, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Version;
+import org.osgi.service.obr.*;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrency test of the operations of the {@link org.orbisgis.bundlemanager.BundleUtils} class on the same bundle,
+ * run against a mocked {@link BundleContext} and {@link RepositoryAdmin}.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class BundleUtilsConcurrencyTest {
+
+    private static final String GROUP_ID = "org.test";
+    private static final String ARTIFACT_ID = "bundle";
+    private static final String SYMBOLIC_NAME = GROUP_ID + "." + ARTIFACT_ID;
+    private static final Version VERSION = new Version(1, 0, 0);
+    private static final int THREADS = 8;
+    private static final int OPERATIONS = 50;
+
+    /**
+     * Create a mock of the given interface. The answers give the result of each call from the method name and its
+     * arguments, a null answer of a primitive method is replaced by its default value.
+     */
+    private static <T> T mock(Class<T> type, BiFunction<String, Object[], Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch(method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName();
+            }
+            Object value = answers.apply(method.getName(), args);
+            if(value == null && method.getReturnType() == boolean.class) {
+                return false;
+            }
+            if(value == null && method.getReturnType() == int.class) {
+                return 0;
+            }
+            if(value == null && method.getReturnType() == long.class) {
+                return 0L;
+            }
+            return value;
+        }));
+    }
+
+    private static void setField(Object object, String name, Object value) throws ReflectiveOperationException {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+
+    private static Object getField(Object object, String name) throws ReflectiveOperationException {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    @Test
+    void sameBundleOperationsTest() throws Exception {
+        BundleUtils bundleUtils = new BundleUtils();
+        StripedLock bundleLocks = (StripedLock) getField(bundleUtils, "bundleLocks");
+
+        AtomicInteger state = new AtomicInteger(Bundle.RESOLVED);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        AtomicInteger bundleCalls = new AtomicInteger();
+        List<String> unlockedCalls = new CopyOnWriteArrayList<>();
+        BundleRegistry[] registry = new BundleRegistry[1];
+        Bundle[] bundle = new Bundle[1];
+        bundle[0] = mock(Bundle.class, (name, args) -> {
+            switch(name) {
+                case "getSymbolicName":
+                    return SYMBOLIC_NAME;
+                case "getVersion":
+                    return VERSION;
+                case "getBundleId":
+                    return 5L;
+                case "getState":
+                    return state.get();
+                case "start":
+                case "stop":
+                case "update":
+                    //Record the overlapping calls and the calls done without the bundle lock
+                    if(!bundleLocks.get(SYMBOLIC_NAME).isHeldByCurrentThread()) {
+                        unlockedCalls.add(name);
+                    }
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    bundleCalls.incrementAndGet();
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+                    state.set(name.equals("start") ? Bundle.ACTIVE : Bundle.RESOLVED);
+                    inside.decrementAndGet();
+                    registry[0].bundleChanged(new BundleEvent(
+                            name.equals("start") ? BundleEvent.STARTED : BundleEvent.STOPPED, bundle[0]));
+                    return null;
+            }
+            return null;
+        });
+        BundleContext bundleContext = mock(BundleContext.class, (name, args) ->
+                name.equals("getBundles") ? new Bundle[]{bundle[0]} : null);
+
+        Resource resource = mock(Resource.class, (name, args) -> {
+            switch(name) {
+                case "getSymbolicName":
+                    return SYMBOLIC_NAME;
+                case "getVersion":
+                    return VERSION;
+                case "getCategories":
+                    return new String[0];
+            }
+            return null;
+        });
+        URL repositoryUrl = new URL("file:/test/obr.xml");
+        Repository repository = mock(Repository.class, (name, args) -> {
+            switch(name) {
+                case "getURL":
+                    return repositoryUrl;
+                case "getLastModified":
+                    return 1L;
+                case "getResources":
+                    return new Resource[]{resource};
+            }
+            return null;
+        });
+        RepositoryAdmin repositoryAdmin = mock(RepositoryAdmin.class, (name, args) -> {
+            switch(name) {
+                case "listRepositories":
+                    return new Repository[]{repository};
+                case "resolver":
+                    return mock(Resolver.class, (resolverMethod, resolverArgs) -> {
+                        switch(resolverMethod) {
+                            case "getAddedResources":
+                                return new Resource[]{resource};
+                            case "getRequiredResources":
+                            case "getOptionalResources":
+                                return new Resource[0];
+                            case "resolve":
+                                return true;
+                        }
+                        return null;
+                    });
+            }
+            return null;
+        });
+
+        //Set up the component without its activation, which registers the remote OBR repositories
+        bundleUtils.setRepositoryAdmin(repositoryAdmin);
+        registry[0] = new BundleRegistry(bundleContext);
+        registry[0].open();
+        setField(bundleUtils, "bundleContext", bundleContext);
+        setField(bundleUtils, "bundleRegistry", registry[0]);
+        setField(bundleUtils, "resolutionCache", new ResolutionCache(bundleContext, registry[0], repositoryAdmin));
+
+        CyclicBarrier barrier = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int t = 0; t < THREADS; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    for(int i = 0; i < OPERATIONS; i++) {
+                        switch((i + offset) % 4) {
+                            case 0:
+                                bundleUtils.install(GROUP_ID, ARTIFACT_ID);
+                                break;
+                            case 1:
+                                bundleUtils.start(GROUP_ID, ARTIFACT_ID);
+                                break;
+                            case 2:
+                                bundleUtils.update(GROUP_ID, ARTIFACT_ID);
+                                break;
+                            default:
+                                bundleUtils.stop(GROUP_ID, ARTIFACT_ID);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(bundleCalls.get() > THREADS * OPERATIONS / 2);
+        assertEquals(Collections.emptyList(), unlockedCalls);
+        assertEquals(1, maxInside.get());
+    }
+}
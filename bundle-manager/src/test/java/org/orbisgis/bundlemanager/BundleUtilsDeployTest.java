@@ -0,0 +1,202 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.apache.felix.bundlerepository.DataModelHelper;
+import org.apache.felix.bundlerepository.impl.RepositoryAdminImpl;
+import org.apache.felix.bundlerepository.impl.wrapper.Wrapper;
+import org.apache.felix.framework.FrameworkFactory;
+import org.apache.felix.utils.log.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.orbisgis.bundlemanagerapi.BundleOperationResult;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the deployment of several bundles at once by {@link org.orbisgis.bundlemanager.BundleUtils}, with the
+ * OBR implementation of Felix and a real framework.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class BundleUtilsDeployTest {
+
+    private static final String GROUP_ID = "org.test";
+
+    private File root;
+    private File bundleFolder;
+    private Framework framework;
+    private BundleRegistry registry;
+    private BundleUtils bundleUtils;
+
+    /**
+     * Create a bundle jar with only a manifest into the given folder.
+     */
+    private static File createBundleFile(File folder, String artifactId, String exportPackage, String importPackage)
+            throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+        attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, GROUP_ID + "." + artifactId);
+        attributes.putValue(Constants.BUNDLE_VERSION, "1.0.0");
+        if(exportPackage != null) {
+            attributes.putValue(Constants.EXPORT_PACKAGE, exportPackage);
+        }
+        if(importPackage != null) {
+            attributes.putValue(Constants.IMPORT_PACKAGE, importPackage);
+        }
+        File file = new File(folder, artifactId + ".jar");
+        try(JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest)) {
+            out.flush();
+        }
+        return file;
+    }
+
+    private static void setField(Object object, String name, Object value) throws ReflectiveOperationException {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(object, value);
+    }
+
+    /**
+     * Start a framework and set up a {@link BundleUtils} with an OBR repository containing the given bundle files.
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        root = new File("target", UUID.randomUUID().toString());
+        bundleFolder = new File(root, "bundles");
+        assertTrue(bundleFolder.mkdirs());
+        List<File> files = Arrays.asList(
+                createBundleFile(bundleFolder, "good", null, null),
+                createBundleFile(bundleFolder, "bad", null, "test.missing"),
+                createBundleFile(bundleFolder, "lib", "test.lib", "test.other.missing"),
+                createBundleFile(bundleFolder, "transitive", null, "test.lib"));
+
+        Map<String, String> configProps = new HashMap<>();
+        configProps.put(Constants.FRAMEWORK_STORAGE, new File(root, "cache").getAbsolutePath());
+        framework = new FrameworkFactory().newFramework(configProps);
+        framework.start();
+        BundleContext bundleContext = framework.getBundleContext();
+        RepositoryAdminImpl repositoryAdmin = new RepositoryAdminImpl(bundleContext, new Logger(bundleContext));
+        DataModelHelper helper = repositoryAdmin.getHelper();
+        List<org.apache.felix.bundlerepository.Resource> resources = new ArrayList<>();
+        for(File file : files) {
+            resources.add(helper.createResource(file.toURI().toURL()));
+        }
+        File repositoryFile = new File(root, "obr.xml");
+        try(Writer writer = new FileWriter(repositoryFile)) {
+            helper.writeRepository(helper.repository(resources.toArray(
+                    new org.apache.felix.bundlerepository.Resource[0])), writer);
+        }
+        repositoryAdmin.addRepository(repositoryFile.toURI().toURL());
+
+        //Set up the component without its activation, which registers the remote OBR repositories
+        bundleUtils = new BundleUtils();
+        bundleUtils.setRepositoryAdmin(Wrapper.wrap(repositoryAdmin));
+        registry = new BundleRegistry(bundleContext);
+        registry.open();
+        setField(bundleUtils, "bundleContext", bundleContext);
+        setField(bundleUtils, "bundleRegistry", registry);
+        setField(bundleUtils, "resolutionCache", new ResolutionCache(bundleContext, registry,
+                Wrapper.wrap(repositoryAdmin)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        registry.close();
+        framework.stop();
+        framework.waitForStop(0);
+    }
+
+    @Test
+    void installAllUnsatisfiedTest() {
+        //Only the bundles with unsatisfied requirements fail, even when the requirement is one of a dependency
+        Map<String, BundleOperationResult> results = bundleUtils.installAll(Arrays.asList(
+                GROUP_ID + ":good", GROUP_ID + ":bad", GROUP_ID + ":transitive"));
+        assertEquals(BundleOperationResult.Status.SUCCESS, results.get(GROUP_ID + ":good").getStatus());
+        assertEquals(BundleOperationResult.Status.FAILED, results.get(GROUP_ID + ":bad").getStatus());
+        assertTrue(results.get(GROUP_ID + ":bad").getMessage().contains("test.missing"));
+        assertEquals(BundleOperationResult.Status.FAILED, results.get(GROUP_ID + ":transitive").getStatus());
+        assertTrue(results.get(GROUP_ID + ":transitive").getMessage().contains("test.lib"));
+
+        Bundle good = registry.getBundle(GROUP_ID + ".good");
+        assertNotNull(good);
+        assertEquals(Bundle.ACTIVE, good.getState());
+        assertNull(registry.getBundle(GROUP_ID + ".bad"));
+        assertNull(registry.getBundle(GROUP_ID + ".transitive"));
+    }
+
+    @Test
+    void updateAllFailureTest() throws Exception {
+        String good = GROUP_ID + ":good";
+        Bundle bundle = framework.getBundleContext().installBundle(
+                new File(bundleFolder, "good.jar").toURI().toString());
+        bundle.start();
+        assertEquals(Bundle.ACTIVE, bundle.getState());
+
+        //The update from a removed location fails, but the bundle is restarted
+        assertTrue(new File(bundleFolder, "good.jar").delete());
+        Map<String, BundleOperationResult> results = bundleUtils.updateAll(Collections.singletonList(good));
+        assertEquals(BundleOperationResult.Status.FAILED, results.get(good).getStatus());
+        assertTrue(results.get(good).getMessage().startsWith("Unable to update the bundle"));
+        assertEquals(Bundle.ACTIVE, bundle.getState());
+
+        //The update of the restored bundle succeeds
+        createBundleFile(bundleFolder, "good", null, null);
+        results = bundleUtils.updateAll(Collections.singletonList(good));
+        assertEquals(BundleOperationResult.Status.SUCCESS, results.get(good).getStatus());
+        assertEquals(Bundle.ACTIVE, bundle.getState());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.apache.felix.bundlerepository.Repository;
+import org.apache.felix.bundlerepository.Resource;
+import org.apache.felix.bundlerepository.impl.DataModelHelperImpl;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.bundlemanager.RepositoryIndexHandler} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class RepositoryIndexHandlerTest {
+
+    private static final String INDEX = "<?xml version='1.0' encoding='utf-8'?>\n" +
+            "<repository name='test' lastmodified='20180101000000.000'>\n" +
+            "  <resource id='org.test.good/1.0.0' symbolicname='org.test.good' version='1.0.0' uri='good.jar'/>\n" +
+            "</repository>";
+
+    @Test
+    void createURLTest() throws Exception {
+        File folder = new File("target", UUID.randomUUID().toString());
+        assertTrue(folder.mkdirs());
+        File bundleFile = new File(folder, "good.jar");
+        Files.write(bundleFile.toPath(), new byte[]{1, 2, 3});
+        //The index file does not exist, so its content can only come from the handler
+        URL indexURL = new File(folder, "obr.xml").toURI().toURL();
+        URL url = RepositoryIndexHandler.createURL(indexURL, INDEX.getBytes(StandardCharsets.UTF_8));
+        assertEquals(indexURL.toExternalForm(), url.toExternalForm());
+        try(InputStream in = url.openStream()) {
+            assertEquals(INDEX, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        //The URLs resolved against the index URL are opened normally
+        try(InputStream in = new URL(url, "good.jar").openStream()) {
+            assertArrayEquals(new byte[]{1, 2, 3}, in.readAllBytes());
+        }
+
+        //The OBR parser reads the given content and keeps the repository address
+        Repository repository = new DataModelHelperImpl().repository(url);
+        assertEquals(indexURL.toExternalForm(), repository.getURI());
+        Resource[] resources = repository.getResources();
+        assertEquals(1, resources.length);
+        assertEquals("org.test.good", resources[0].getSymbolicName());
+        assertEquals(bundleFile.toURI().toURL(), new URL(resources[0].getURI()));
+    }
+}
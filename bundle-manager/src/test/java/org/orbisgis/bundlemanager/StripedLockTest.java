@@ -0,0 +1,189 @@
+/*
+ * Bundle Manager is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Bundle Manager is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Bundle Manager is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Bundle Manager is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Bundle Manager. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.bundlemanager;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.bundlemanager.StripedLock} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class StripedLockTest {
+
+    private static final int THREADS = 32;
+    private static final int OPERATIONS = 2000;
+
+    /**
+     * Run the given task from many threads at the same time and wait for their end.
+     */
+    private static void hammer(Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for(int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for(Future<Void> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sameKeyLinearizedTest() throws Exception {
+        StripedLock stripedLock = new StripedLock(16);
+        String[] keys = {"org.orbisgis.a", "org.orbisgis.b", "org.orbisgis.c", "org.orbisgis.d"};
+        Map<String, int[]> counters = new HashMap<>();
+        Map<String, AtomicInteger> actives = new HashMap<>();
+        for(String key : keys) {
+            counters.put(key, new int[1]);
+            actives.put(key, new AtomicInteger());
+        }
+        AtomicInteger overlaps = new AtomicInteger();
+        hammer(() -> {
+            Random random = ThreadLocalRandom.current();
+            for(int i = 0; i < OPERATIONS; i++) {
+                String key = keys[random.nextInt(keys.length)];
+                ReentrantLock lock = stripedLock.get(key);
+                lock.lock();
+                try {
+                    if(actives.get(key).incrementAndGet() != 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    int[] counter = counters.get(key);
+                    int value = counter[0];
+                    if(i % 64 == 0) {
+                        Thread.yield();
+                    }
+                    counter[0] = value + 1;
+                    actives.get(key).decrementAndGet();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return null;
+        });
+        assertEquals(0, overlaps.get());
+        int total = 0;
+        for(int[] counter : counters.values()) {
+            total += counter[0];
+        }
+        assertEquals(THREADS * OPERATIONS, total);
+    }
+
+    @Test
+    void differentKeysParallelTest() throws Exception {
+        StripedLock stripedLock = new StripedLock(16);
+        String first = "org.orbisgis.first";
+        String second = null;
+        for(int i = 0; second == null; i++) {
+            if(stripedLock.get("org.orbisgis.other" + i) != stripedLock.get(first)) {
+                second = "org.orbisgis.other" + i;
+            }
+        }
+        CountDownLatch secondLocked = new CountDownLatch(1);
+        ReentrantLock firstLock = stripedLock.get(first);
+        firstLock.lock();
+        try {
+            String secondKey = second;
+            Thread thread = new Thread(() -> {
+                ReentrantLock secondLock = stripedLock.get(secondKey);
+                secondLock.lock();
+                try {
+                    secondLocked.countDown();
+                } finally {
+                    secondLock.unlock();
+                }
+            });
+            thread.start();
+            assertTrue(secondLocked.await(10, TimeUnit.SECONDS));
+            thread.join();
+        } finally {
+            firstLock.unlock();
+        }
+    }
+
+    @Test
+    void lockAllStressTest() throws Exception {
+        StripedLock stripedLock = new StripedLock(8);
+        List<String> keys = new ArrayList<>();
+        for(int i = 0; i < 32; i++) {
+            keys.add("org.orbisgis.bundle" + i);
+        }
+        int[] counter = new int[1];
+        hammer(() -> {
+            Random random = ThreadLocalRandom.current();
+            for(int i = 0; i < OPERATIONS / 4; i++) {
+                List<String> subset = new ArrayList<>(keys);
+                Collections.shuffle(subset, random);
+                subset = subset.subList(0, 1 + random.nextInt(keys.size()));
+                List<ReentrantLock> locks = stripedLock.lockAll(subset);
+                try {
+                    if(locks.contains(stripedLock.get(keys.get(0)))) {
+                        counter[0]++;
+                    }
+                    for(String key : subset) {
+                        assertTrue(stripedLock.get(key).isHeldByCurrentThread());
+                    }
+                } finally {
+                    stripedLock.unlockAll(locks);
+                }
+            }
+            return null;
+        });
+        for(String key : keys) {
+            assertFalse(stripedLock.get(key).isLocked());
+        }
+        assertTrue(counter[0] > 0);
+    }
+}
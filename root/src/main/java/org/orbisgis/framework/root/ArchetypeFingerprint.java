@@ -0,0 +1,153 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Root is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Root is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Root is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Root. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.apache.felix.framework.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Fingerprint of the state of the workspace after a successful start of the framework.
+ *
+ * The fingerprint is the hash of the archetype content, of the listing of the bundle folder (file names, sizes and
+ * modification dates) and of the framework version. When the fingerprint computed on startup matches the one saved
+ * after the last successful start, nothing has changed and the archetype reconciliation can be skipped.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class ArchetypeFingerprint {
+
+    /** Name of the fingerprint file. It should not start with 'bundle' to avoid conflicts with the Felix bundle cache. */
+    public static final String FINGERPRINT_FILE_NAME = "archetype.fingerprint";
+
+    /** File where the fingerprint is stored. */
+    private final File fingerprintFile;
+    /** Logger. */
+    private final Logger logger;
+
+    /**
+     * Main constructor.
+     *
+     * @param cacheFolder Folder where the fingerprint file is stored.
+     * @param logger Logger.
+     */
+    public ArchetypeFingerprint(File cacheFolder, Logger logger) {
+        this.fingerprintFile = new File(cacheFolder, FINGERPRINT_FILE_NAME);
+        this.logger = logger;
+    }
+
+    /**
+     * Compute the fingerprint of the given archetype content, bundle folder and framework version.
+     *
+     * @param archetype Content of the archetype resource.
+     * @param bundleFolder Bundle folder of the workspace.
+     * @param frameworkVersion Version of the framework.
+     *
+     * @return The fingerprint as an hexadecimal string.
+     */
+    public static String compute(byte[] archetype, File bundleFolder, String frameworkVersion) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        digest.update(archetype);
+        digest.update((byte) 0);
+        File[] files = bundleFolder.listFiles();
+        if(files != null) {
+            Arrays.sort(files);
+            for(File file : files) {
+                digest.update((file.getName() + '|' + file.length() + '|' + file.lastModified() + '\n')
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        digest.update((byte) 0);
+        digest.update(frameworkVersion.getBytes(StandardCharsets.UTF_8));
+        return DownloadCache.toHex(digest.digest());
+    }
+
+    /**
+     * Indicates if the given fingerprint matches the one saved after the last successful start.
+     *
+     * @param fingerprint Fingerprint to check.
+     *
+     * @return True if the fingerprints match, false otherwise.
+     */
+    public boolean matches(String fingerprint) {
+        if(!fingerprintFile.exists()) {
+            return false;
+        }
+        try {
+            return fingerprint.equals(new String(Files.readAllBytes(fingerprintFile.toPath()),
+                    StandardCharsets.UTF_8).trim());
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Unable to read the archetype fingerprint '" + fingerprintFile + "'");
+            return false;
+        }
+    }
+
+    /**
+     * Save the given fingerprint.
+     *
+     * @param fingerprint Fingerprint to save.
+     */
+    public void save(String fingerprint) {
+        try {
+            Files.write(fingerprintFile.toPath(), fingerprint.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Unable to save the archetype fingerprint '" + fingerprintFile + "'\n" +
+                    e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Remove the saved fingerprint, so the archetype is reconciled on the next start.
+     */
+    public void clear() {
+        if(fingerprintFile.exists() && !fingerprintFile.delete()) {
+            logger.log(Logger.LOG_WARNING, "Unable to remove the archetype fingerprint '" + fingerprintFile + "'");
+        }
+    }
+}
@@ -38,19 +38,26 @@ package org.orbisgis.framework.root;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.felix.framework.Logger;
+import org.osgi.framework.Bundle;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.BundleException;
 import org.osgi.framework.Constants;
+import org.osgi.framework.Version;
+import org.osgi.framework.startlevel.BundleStartLevel;
+import org.osgi.framework.wiring.BundleRevision;
+import org.osgi.framework.wiring.BundleWire;
+import org.osgi.framework.wiring.BundleWiring;
+import org.osgi.framework.wiring.FrameworkWiring;
 
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
 import java.util.*;
-import java.util.jar.Attributes;
-import java.util.jar.JarFile;
-import java.util.jar.Manifest;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Class able to load an archetype.
@@ -60,25 +67,45 @@ import java.util.jar.Manifest;
  */
 public class ArchetypeLoader {
 
+    /** Name of the configuration property setting the number of bundles downloaded at the same time. */
+    public static final String DOWNLOAD_PARALLELISM_PROPERTY = "orbisgis.archetype.download.parallelism";
+    /** Default number of bundles downloaded at the same time. */
+    public static final int DEFAULT_DOWNLOAD_PARALLELISM = 4;
+
     /**
      * Load the given archetype by downloading the bundle into the given  {@link org.orbisgis.framework.root.ISystemWorkspace}
      * @param coreWorkspace
      * @param bundleContext
      * @param archetypePath
      * @param logger
+     * @return True if all the bundles of the archetype have been downloaded and installed, false otherwise.
      */
-    public static void loadArchetype(ISystemWorkspace coreWorkspace, BundleContext bundleContext, String archetypePath, Logger logger){
+    public static boolean loadArchetype(ISystemWorkspace coreWorkspace, BundleContext bundleContext, String archetypePath, Logger logger){
+        return loadArchetype(coreWorkspace, bundleContext, archetypePath, logger, DEFAULT_DOWNLOAD_PARALLELISM);
+    }
+
+    /**
+     * Load the given archetype by downloading the bundle into the given  {@link org.orbisgis.framework.root.ISystemWorkspace}
+     * @param coreWorkspace
+     * @param bundleContext
+     * @param archetypePath
+     * @param logger
+     * @param downloadParallelism Maximum number of bundles downloaded at the same time.
+     * @return True if all the bundles of the archetype have been downloaded and installed, false otherwise.
+     */
+    public static boolean loadArchetype(ISystemWorkspace coreWorkspace, BundleContext bundleContext, String archetypePath,
+                                     Logger logger, int downloadParallelism){
         logger.log(Logger.LOG_DEBUG, "Loading the archetype : "+archetypePath);
         if(!new File(archetypePath).exists()){
             logger.log(Logger.LOG_ERROR, "The archetype path is not valid");
-            return;
+            return false;
         }
         Properties properties = new Properties();
         try {
             properties.load(new FileInputStream(new File(archetypePath)));
         } catch (IOException e) {
             logger.log(Logger.LOG_ERROR, "Unable to load the archetype : "+e.getLocalizedMessage());
-            return;
+            return false;
         }
         Map<String, String> bundleNameSourceMap = new HashMap<>();
         Collections.list(properties.propertyNames()).forEach((bundle)->{
@@ -98,6 +125,10 @@ public class ArchetypeLoader {
         });
 
         //Download all the bundle which are not in the coreworkspace bundle folder.
+        DownloadCache downloadCache = new DownloadCache(
+                new File(coreWorkspace.getCacheFolderPath(), DownloadCache.DOWNLOAD_CACHE_FOLDER_NAME), logger);
+        Map<String, URL> downloadMap = new HashMap<>();
+        boolean isSuccess = true;
         for(Iterator<Map.Entry<String, String>> it = bundleNameSourceMap.entrySet().iterator(); it.hasNext();){
             Map.Entry<String, String> entry = it.next();
             URL url;
@@ -106,54 +137,361 @@ public class ArchetypeLoader {
             } catch (MalformedURLException e) {
                 logger.log(Logger.LOG_WARNING, "Cannot open the URL :"+entry.getKey());
                 it.remove();
+                isSuccess = false;
                 continue;
             }
             String fileName = FilenameUtils.getName(url.getPath());
             File bundleFile = new File(coreWorkspace.getBundleFolderPath(), fileName);
-            if(bundleFile.exists() && url.getQuery() == null){
+            if(bundleFile.exists() && url.getQuery() == null && downloadCache.isConsistent(url, bundleFile)){
                 logger.log(Logger.LOG_DEBUG, "Bundle '"+entry.getKey()+"' is already in bundle folder.");
                 it.remove();
             }
             else{
-                if(!downloadBundle(entry.getValue(), url, logger)){
-                    it.remove();
-                }
+                downloadMap.put(entry.getKey(), url);
             }
         }
+        int downloadPhase = StartupTimeline.start("archetype.downloads");
+        isSuccess &= downloadBundles(bundleNameSourceMap, downloadMap, downloadCache, downloadParallelism, logger);
+        StartupTimeline.end(downloadPhase);
 
         if (bundleContext != null) {
             //Launch All the bundle in not already present
-            for(File file : new File(coreWorkspace.getBundleFolderPath()).listFiles()){
-                URL url;
+            File[] files = new File(coreWorkspace.getBundleFolderPath()).listFiles();
+            if(files != null) {
+                ManifestIndex manifestIndex = new ManifestIndex(
+                        new File(coreWorkspace.getCacheFolderPath(), ManifestIndex.INDEX_FILE_NAME), logger);
+                isSuccess &= installAndStartBundles(files, bundleContext, manifestIndex, logger);
+                List<String> fileNames = new ArrayList<>();
+                for(File file : files){
+                    fileNames.add(file.getName());
+                }
+                manifestIndex.retainAll(fileNames);
+                manifestIndex.save();
+            }
+        }
+        return isSuccess;
+    }
+
+    /**
+     * Indicates if all the bundle files of the bundle folder of the given workspace are installed in the framework,
+     * matched on their symbolic name and version like during the loading. The files without symbolic name cannot be
+     * matched, so they are not checked.
+     *
+     * @param coreWorkspace Workspace containing the bundle files.
+     * @param bundleContext Context of the framework.
+     * @param logger Logger.
+     *
+     * @return True if all the bundle files are installed, false otherwise.
+     */
+    public static boolean isArchetypeInstalled(ISystemWorkspace coreWorkspace, BundleContext bundleContext,
+                                               Logger logger){
+        File[] files = new File(coreWorkspace.getBundleFolderPath()).listFiles();
+        if(files == null){
+            return false;
+        }
+        ManifestIndex manifestIndex = new ManifestIndex(
+                new File(coreWorkspace.getCacheFolderPath(), ManifestIndex.INDEX_FILE_NAME), logger);
+        Set<String> installedKeys = getInstalledBundleKeys(bundleContext);
+        try {
+            for(File file : files){
+                ManifestIndex.Entry entry = manifestIndex.getEntry(file);
+                if(entry != null && entry.getSymbolicName() != null &&
+                        !isBundleInCache(file, installedKeys, manifestIndex)){
+                    logger.log(Logger.LOG_DEBUG, "The bundle '" + file.getName() + "' is not installed");
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            manifestIndex.save();
+        }
+    }
+
+    /**
+     * Install, resolve and start the given bundle files. First all the bundles are installed concurrently, then they are
+     * resolved together and finally they are started concurrently, ordered by start level and by wiring dependencies.
+     *
+     * @param files Bundle files.
+     * @param bundleContext Context used for the installation.
+     * @param manifestIndex Index of the manifests of the bundle files.
+     * @param logger Logger.
+     *
+     * @return True if all the bundles have been installed and started, false otherwise.
+     */
+    private static boolean installAndStartBundles(File[] files, BundleContext bundleContext, ManifestIndex manifestIndex,
+                                               Logger logger){
+        int poolSize = Math.max(1, Math.min(files.length, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            //Install all the bundles
+            int phase = StartupTimeline.start("archetype.installs");
+            Set<String> installedKeys = getInstalledBundleKeys(bundleContext);
+            List<Callable<Bundle>> installTasks = new ArrayList<>();
+            for(File file : files){
+                installTasks.add(() -> installBundle(file, bundleContext, installedKeys, manifestIndex, logger));
+            }
+            List<Bundle> installedBundles = new ArrayList<>();
+            boolean isSuccess = true;
+            for(Future<Bundle> future : executor.invokeAll(installTasks)){
                 try {
-                    url = file.toURL();
-                } catch (MalformedURLException e) {
-                    logger.log(Logger.LOG_WARNING, "Cannot open the URL :"+file);
-                    return;
+                    Bundle bundle = future.get();
+                    if(bundle != null){
+                        installedBundles.add(bundle);
+                    }
+                } catch (ExecutionException e) {
+                    logger.log(Logger.LOG_ERROR, e.getCause().getLocalizedMessage());
+                    isSuccess = false;
                 }
-                String fileName = FilenameUtils.getName(url.getPath());
-                if (isBundleInCache(url, coreWorkspace.getBundleFolderPath(), bundleContext)) {
-                    logger.log(Logger.LOG_DEBUG, "The bundle '" + fileName + "' is already installed");
+            }
+            StartupTimeline.end(phase);
+            if(installedBundles.isEmpty()){
+                return isSuccess;
+            }
+
+            //Resolve all the installed bundles at once
+            phase = StartupTimeline.start("archetype.resolve");
+            FrameworkWiring frameworkWiring = bundleContext.getBundle(Constants.SYSTEM_BUNDLE_ID)
+                    .adapt(FrameworkWiring.class);
+            if(!frameworkWiring.resolveBundles(installedBundles)){
+                logger.log(Logger.LOG_WARNING, "Some of the installed bundles cannot be resolved");
+            }
+            StartupTimeline.end(phase);
+
+            //Start the bundles wave after wave
+            phase = StartupTimeline.start("archetype.starts");
+            for(List<Bundle> wave : getStartWaves(installedBundles)){
+                List<Callable<Bundle>> startTasks = new ArrayList<>();
+                for(Bundle bundle : wave){
+                    startTasks.add(() -> startBundle(bundle, logger));
                 }
-                else{
-                    try {
-                        logger.log(Logger.LOG_DEBUG, "Installing bundle '" + fileName + "'");
-                        bundleContext.installBundle(fileName, url.openStream());
-                        bundleContext.getBundle(fileName).start();
-                        logger.log(Logger.LOG_DEBUG, "The bundle '" + fileName + "' has been installed");
-                    } catch (BundleException e) {
-                        logger.log(Logger.LOG_ERROR, "An error occurred while installing the bundle '" + fileName + "'");
-                    } catch (FileNotFoundException e) {
-                        logger.log(Logger.LOG_ERROR, "An error occurred while finding the file '" + fileName + "'");
-                    } catch (IOException e) {
-                        logger.log(Logger.LOG_ERROR, "An error occurred while reading the file '" + fileName + "'");
+                for(Future<Bundle> future : executor.invokeAll(startTasks)){
+                    if(getResult(future, logger) == null){
+                        isSuccess = false;
                     }
                 }
             }
+            StartupTimeline.end(phase);
+            return isSuccess;
+        } catch (InterruptedException e) {
+            logger.log(Logger.LOG_WARNING, "Interrupted while installing the bundles");
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Install the given bundle file if it is not already installed.
+     *
+     * @param file Bundle file.
+     * @param bundleContext Context used for the installation.
+     * @param installedKeys Keys of the installed bundles, see {@link #getBundleKey(String, Version)}.
+     * @param manifestIndex Index of the manifests of the bundle files.
+     * @param logger Logger.
+     *
+     * @return The installed bundle, or null if the bundle was already installed.
+     *
+     * @throws Exception Exception thrown if the bundle cannot be installed.
+     */
+    private static Bundle installBundle(File file, BundleContext bundleContext, Set<String> installedKeys,
+                                        ManifestIndex manifestIndex, Logger logger) throws Exception {
+        URL url = file.toURI().toURL();
+        String fileName = FilenameUtils.getName(url.getPath());
+        int manifestPhase = StartupTimeline.start("archetype.manifestCheck", fileName);
+        boolean isInCache = isBundleInCache(file, installedKeys, manifestIndex);
+        StartupTimeline.end(manifestPhase);
+        if (isInCache) {
+            logger.log(Logger.LOG_DEBUG, "The bundle '" + fileName + "' is already installed");
+            return null;
+        }
+        logger.log(Logger.LOG_DEBUG, "Installing bundle '" + fileName + "'");
+        int installPhase = StartupTimeline.start("archetype.install", fileName);
+        try(InputStream inputStream = url.openStream()) {
+            Bundle bundle = bundleContext.installBundle(fileName, inputStream);
+            logger.log(Logger.LOG_DEBUG, "The bundle '" + fileName + "' has been installed");
+            return bundle;
+        } catch (BundleException e) {
+            throw new BundleException("An error occurred while installing the bundle '" + fileName + "'", e);
+        } catch (FileNotFoundException e) {
+            throw new IOException("An error occurred while finding the file '" + fileName + "'", e);
+        } catch (IOException e) {
+            throw new IOException("An error occurred while reading the file '" + fileName + "'", e);
+        } finally {
+            StartupTimeline.end(installPhase);
+        }
+    }
+
+    /**
+     * Start the given bundle.
+     *
+     * @param bundle Bundle to start.
+     * @param logger Logger.
+     *
+     * @return The bundle if it has been started, null otherwise.
+     */
+    private static Bundle startBundle(Bundle bundle, Logger logger){
+        int phase = StartupTimeline.start("archetype.start", bundle.getLocation());
+        try {
+            bundle.start();
+            logger.log(Logger.LOG_DEBUG, "The bundle '" + bundle.getLocation() + "' has been started");
+            return bundle;
+        } catch (BundleException e) {
+            logger.log(Logger.LOG_ERROR, "An error occurred while starting the bundle '" + bundle.getLocation() +
+                    "'");
+        } finally {
+            StartupTimeline.end(phase);
+        }
+        return null;
+    }
+
+    /**
+     * Split the given bundles into waves of bundles which can be started concurrently. The waves are ordered by start
+     * level, then by wiring dependencies : a bundle is always in a wave after the waves of the bundles it is wired to.
+     * The fragments are not started, so they are not in any wave.
+     *
+     * @param bundles Bundles to start.
+     *
+     * @return The ordered list of the waves of bundles to start.
+     */
+    private static List<List<Bundle>> getStartWaves(List<Bundle> bundles){
+        Set<Bundle> bundleSet = new HashSet<>(bundles);
+        Map<Bundle, Integer> depthMap = new HashMap<>();
+        TreeMap<Integer, TreeMap<Integer, List<Bundle>>> waveMap = new TreeMap<>();
+        for(Bundle bundle : bundles){
+            BundleRevision revision = bundle.adapt(BundleRevision.class);
+            if(revision != null && (revision.getTypes() & BundleRevision.TYPE_FRAGMENT) != 0){
+                continue;
+            }
+            BundleStartLevel startLevel = bundle.adapt(BundleStartLevel.class);
+            int level = startLevel == null ? 0 : startLevel.getStartLevel();
+            int depth = getDependencyDepth(bundle, bundleSet, depthMap, new HashSet<>());
+            waveMap.computeIfAbsent(level, key -> new TreeMap<>())
+                    .computeIfAbsent(depth, key -> new ArrayList<>())
+                    .add(bundle);
+        }
+        List<List<Bundle>> waves = new ArrayList<>();
+        waveMap.values().forEach(depthWaves -> waves.addAll(depthWaves.values()));
+        return waves;
+    }
+
+    /**
+     * Return the depth of the given bundle in the wiring dependency graph of the given bundles : 0 if the bundle is not
+     * wired to any of them, otherwise one more than the depth of its deepest provider.
+     *
+     * @param bundle Bundle to compute the depth of.
+     * @param bundleSet Bundles to consider in the dependency graph.
+     * @param depthMap Map of the already computed depths.
+     * @param visited Bundles on the current path, used to break the dependency cycles.
+     *
+     * @return The dependency depth of the bundle.
+     */
+    private static int getDependencyDepth(Bundle bundle, Set<Bundle> bundleSet, Map<Bundle, Integer> depthMap,
+                                          Set<Bundle> visited){
+        Integer depth = depthMap.get(bundle);
+        if(depth != null){
+            return depth;
+        }
+        if(!visited.add(bundle)){
+            return 0;
+        }
+        int result = 0;
+        BundleWiring wiring = bundle.adapt(BundleWiring.class);
+        if(wiring != null){
+            for(BundleWire wire : wiring.getRequiredWires(null)){
+                Bundle provider = wire.getProviderWiring().getBundle();
+                if(provider != bundle && bundleSet.contains(provider)){
+                    result = Math.max(result, getDependencyDepth(provider, bundleSet, depthMap, visited) + 1);
+                }
+            }
+        }
+        visited.remove(bundle);
+        depthMap.put(bundle, result);
+        return result;
+    }
+
+    /**
+     * Return the result of the given future, logging the error if the task failed.
+     *
+     * @param future Future of the task.
+     * @param logger Logger.
+     *
+     * @return The result of the task, or null if it failed.
+     */
+    private static <T> T getResult(Future<T> future, Logger logger) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            logger.log(Logger.LOG_ERROR, "An error occurred while loading a bundle\n" +
+                    e.getCause().getLocalizedMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Download concurrently the given bundles. The number of simultaneous downloads is bounded by the given
+     * parallelism. The entries of the bundles which cannot be downloaded are removed from the bundle map.
+     *
+     * @param bundleNameSourceMap Map with the bundle source as key and the destination folder as value.
+     * @param downloadMap Map with the bundle source as key and its URL as value of the bundles to download.
+     * @param downloadCache Cache used for the download of the bundles.
+     * @param parallelism Maximum number of bundles downloaded at the same time.
+     * @param logger Logger.
+     *
+     * @return True if all the bundles have been downloaded, false otherwise.
+     */
+    private static boolean downloadBundles(Map<String, String> bundleNameSourceMap, Map<String, URL> downloadMap,
+                                        DownloadCache downloadCache, int parallelism, Logger logger){
+        if(downloadMap.isEmpty()){
+            return true;
+        }
+        int poolSize = Math.max(1, Math.min(parallelism, downloadMap.size()));
+        logger.log(Logger.LOG_DEBUG, "Downloading "+downloadMap.size()+" bundles with "+poolSize+" threads");
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        Map<String, Future<Boolean>> futureMap = new HashMap<>();
+        boolean isSuccess = true;
+        for(Map.Entry<String, URL> entry : downloadMap.entrySet()){
+            String bundleFolder = bundleNameSourceMap.get(entry.getKey());
+            URL url = entry.getValue();
+            futureMap.put(entry.getKey(), executor.submit(() -> downloadBundle(bundleFolder, downloadCache, url, logger)));
+        }
+        executor.shutdown();
+        for(Map.Entry<String, Future<Boolean>> entry : futureMap.entrySet()){
+            boolean result;
+            try {
+                result = entry.getValue().get();
+            } catch (InterruptedException e) {
+                logger.log(Logger.LOG_WARNING, "Interrupted while downloading the bundle '"+entry.getKey()+"'");
+                Thread.currentThread().interrupt();
+                result = false;
+            } catch (ExecutionException e) {
+                logger.log(Logger.LOG_WARNING, "Cannot download the bundle '"+entry.getKey()+"'\n"+
+                        e.getCause().getLocalizedMessage());
+                result = false;
+            }
+            if(!result){
+                bundleNameSourceMap.remove(entry.getKey());
+                isSuccess = false;
+            }
+        }
+        if(Thread.currentThread().isInterrupted()){
+            executor.shutdownNow();
         }
+        return isSuccess;
     }
 
-    private static boolean downloadBundle(String bundleFolder, URL url, Logger logger){
+    /**
+     * Download the bundle from the given URL through the download cache. The bundle file is replaced atomically once
+     * downloaded, so a bundle file is never seen partially written.
+     *
+     * @param bundleFolder Folder where the bundle should be stored.
+     * @param downloadCache Cache used for the download of the bundle.
+     * @param url URL of the bundle.
+     * @param logger Logger.
+     *
+     * @return True if the bundle has been downloaded, false otherwise.
+     */
+    private static boolean downloadBundle(String bundleFolder, DownloadCache downloadCache, URL url, Logger logger){
 
         String fileName;
         String query = url.getQuery();
@@ -172,44 +510,72 @@ public class ArchetypeLoader {
         }
         logger.log(Logger.LOG_DEBUG, "Downloading the bundle '"+url+"'");
 
-        InputStream inputStream;
-        try {
-            inputStream = url.openStream();
-        } catch (IOException e) {
-            logger.log(Logger.LOG_WARNING, "Cannot open the URL :"+url);
+        if(!new File(bundleFolder).exists() && !new File(bundleFolder).mkdirs()){
+            logger.log(Logger.LOG_WARNING, "Cannot create directory '"+bundleFolder+"'");
             return false;
         }
-        boolean result = true;
-        try {
-            if(!new File(bundleFolder).exists() && !new File(bundleFolder).mkdirs()){
-                logger.log(Logger.LOG_WARNING, "Cannot create directory '"+bundleFolder+"'");
-                return false;
-            }
-            ReadableByteChannel rbc = Channels.newChannel(inputStream);
-            FileOutputStream fos = new FileOutputStream(new File(bundleFolder, fileName));
-            fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
-        } catch (IOException e) {
+        int phase = StartupTimeline.start("archetype.download", fileName);
+        boolean result = downloadCache.download(url, new File(bundleFolder, fileName));
+        StartupTimeline.end(phase);
+        if(!result){
             logger.log(Logger.LOG_WARNING, "Cannot download the bundle '"+fileName+"'");
-            result = false;
-        }
-        try {
-            inputStream.close();
-        } catch (IOException e) {
-            logger.log(Logger.LOG_WARNING, "Cannot close the stream for the download of the bundle '"+fileName+"'");
         }
         return result;
     }
 
-    private static boolean isBundleInCache(URL url, String bundleFolder, BundleContext bundleContext){
-        String fileName = FilenameUtils.getName(url.getPath());
-        try(JarFile jar = new JarFile(new File(bundleFolder, fileName))){
-            Manifest manifest = jar.getManifest();
-            Attributes attributes = manifest.getMainAttributes();
-            String symbolicName = attributes.getValue(Constants.BUNDLE_SYMBOLICNAME);
-            return bundleContext.getBundle(symbolicName) != null;
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Return the key of the installed bundles, used to match a bundle file with an installed bundle. The bundles are
+     * installed with their file name as location, so they are matched on their symbolic name and version.
+     *
+     * @param symbolicName Symbolic name of the bundle.
+     * @param version Version of the bundle.
+     *
+     * @return The key of the bundle.
+     */
+    static String getBundleKey(String symbolicName, Version version){
+        return symbolicName + ";" + version;
+    }
+
+    /**
+     * Return the keys of all the bundles installed in the framework, see {@link #getBundleKey(String, Version)}.
+     *
+     * @param bundleContext Context of the framework.
+     *
+     * @return The keys of the installed bundles.
+     */
+    static Set<String> getInstalledBundleKeys(BundleContext bundleContext){
+        Set<String> keys = new HashSet<>();
+        for(Bundle bundle : bundleContext.getBundles()){
+            if(bundle.getSymbolicName() != null){
+                keys.add(getBundleKey(bundle.getSymbolicName(), bundle.getVersion()));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Indicates if the given bundle file is already installed.
+     *
+     * @param file Bundle file.
+     * @param installedKeys Keys of the installed bundles.
+     * @param manifestIndex Index of the manifests of the bundle files.
+     *
+     * @return True if the bundle is installed or is not a bundle, false otherwise.
+     */
+    private static boolean isBundleInCache(File file, Set<String> installedKeys, ManifestIndex manifestIndex){
+        ManifestIndex.Entry entry = manifestIndex.getEntry(file);
+        if(entry == null){
+            return true;
+        }
+        if(entry.getSymbolicName() == null){
+            return false;
+        }
+        Version version;
+        try {
+            version = Version.parseVersion(entry.getVersion());
+        } catch (IllegalArgumentException e) {
+            return false;
         }
-        return true;
+        return installedKeys.contains(getBundleKey(entry.getSymbolicName(), version));
     }
 }
@@ -0,0 +1,346 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Root is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Root is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Root is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Root. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.apache.felix.framework.Logger;
+import org.osgi.framework.*;
+
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runner of a script over a list of input files, used by the batch mode of the {@link Main} class.
+ *
+ * The framework is started once, then the script is executed for each input file on a pool of worker threads. The
+ * execution is delegated to the IScriptManager service of the framework, which gives to each execution its own engine
+ * bindings from the syntax registry and which compiles the script only once. The input file is given to the script
+ * with the variables {@link #INPUT_VARIABLE} and {@link #INPUT_PATH_VARIABLE}.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public final class BatchRunner {
+
+    /** Name of the service executing the scripts. */
+    public static final String SCRIPT_MANAGER_CLASS = "org.orbisgis.scriptmanagerapi.IScriptManager";
+    /** Path of the class of the service in the bundle providing it. */
+    private static final String SCRIPT_MANAGER_ENTRY = SCRIPT_MANAGER_CLASS.replace('.', '/') + ".class";
+    /** Name of the script variable containing the input {@link File}. */
+    public static final String INPUT_VARIABLE = "input";
+    /** Name of the script variable containing the absolute path of the input. */
+    public static final String INPUT_PATH_VARIABLE = "inputPath";
+    /** Name of the file where the batch report is written. */
+    public static final String REPORT_FILE_NAME = "batch-report.txt";
+    /** Time to wait for the script service, in seconds. */
+    private static final long SERVICE_TIMEOUT = 120;
+
+    private BatchRunner() {}
+
+    /**
+     * Executor of a script with the given variables.
+     */
+    @FunctionalInterface
+    public interface ScriptExecutor {
+        /**
+         * Execute the given script.
+         *
+         * @param language Language of the script.
+         * @param script Content of the script.
+         * @param variables Variables given to the script.
+         *
+         * @return The result of the script.
+         *
+         * @throws Exception Exception thrown by the script execution.
+         */
+        Object eval(String language, String script, Map<String, Object> variables) throws Exception;
+    }
+
+    /**
+     * Return the list of the input files : the given file itself or the files of the given directory, sorted by name.
+     *
+     * @param inputs Input file or directory.
+     *
+     * @return The list of the input files.
+     *
+     * @throws IOException Exception thrown if the inputs cannot be read.
+     */
+    public static List<File> getInputFiles(File inputs) throws IOException {
+        if(inputs.isFile()) {
+            return Collections.singletonList(inputs);
+        }
+        File[] files = inputs.listFiles(File::isFile);
+        if(files == null) {
+            throw new IOException("Unable to list the inputs '" + inputs + "'");
+        }
+        Arrays.sort(files);
+        return Arrays.asList(files);
+    }
+
+    /**
+     * Return the language of the given script file, which is its extension.
+     *
+     * @param script Script file.
+     *
+     * @return The language of the script.
+     */
+    public static String getLanguage(File script) {
+        String name = script.getName();
+        int index = name.lastIndexOf('.');
+        return index < 0 ? name : name.substring(index + 1);
+    }
+
+    /**
+     * Wait for the IScriptManager service of the framework and return a ScriptExecutor using it for the given
+     * language.
+     *
+     * The IScriptManager API is not visible from the root class loader, so the service is called by reflection, with
+     * only JDK types as arguments. The service is only waited for if an installed bundle provides its API, and the
+     * language is checked before running any script.
+     *
+     * @param bundleContext Context of the framework.
+     * @param language Language of the scripts to execute.
+     *
+     * @return The ScriptExecutor using the IScriptManager service.
+     *
+     * @throws Exception Exception thrown if the service is not available or if it does not support the language.
+     */
+    public static ScriptExecutor getScriptExecutor(BundleContext bundleContext, String language) throws Exception {
+        if(bundleContext.getServiceReference(SCRIPT_MANAGER_CLASS) == null && Arrays.stream(bundleContext.getBundles())
+                .noneMatch(bundle -> bundle.getBundleId() != 0 && bundle.getEntry(SCRIPT_MANAGER_ENTRY) != null)) {
+            throw new Exception("No installed bundle provides the service '" + SCRIPT_MANAGER_CLASS + "'");
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        ServiceListener listener = event -> {
+            if(event.getType() == ServiceEvent.REGISTERED) {
+                latch.countDown();
+            }
+        };
+        bundleContext.addServiceListener(listener, "(" + Constants.OBJECTCLASS + "=" + SCRIPT_MANAGER_CLASS + ")");
+        ServiceReference<?> reference;
+        try {
+            reference = bundleContext.getServiceReference(SCRIPT_MANAGER_CLASS);
+            if(reference == null && latch.await(SERVICE_TIMEOUT, TimeUnit.SECONDS)) {
+                reference = bundleContext.getServiceReference(SCRIPT_MANAGER_CLASS);
+            }
+        } finally {
+            bundleContext.removeServiceListener(listener);
+        }
+        Object service = reference == null ? null : bundleContext.getService(reference);
+        if(service == null) {
+            throw new Exception("The service '" + SCRIPT_MANAGER_CLASS + "' is not available");
+        }
+        Collection<?> languages = (Collection<?>) service.getClass().getMethod("getLanguages").invoke(service);
+        if(!languages.contains(language)) {
+            throw new Exception("No script engine available for the language '" + language + "', the available " +
+                    "languages are " + languages);
+        }
+        Method method = service.getClass().getMethod("eval", String.class, String.class, Map.class);
+        return (scriptLanguage, script, variables) -> {
+            try {
+                return method.invoke(service, scriptLanguage, script, variables);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        };
+    }
+
+    /**
+     * Execute the given script for each input file on a pool of worker threads. A failing execution does not stop the
+     * other ones.
+     *
+     * @param executor Executor of the script.
+     * @param language Language of the script.
+     * @param script Content of the script.
+     * @param inputFiles Input files.
+     * @param parallelism Number of worker threads.
+     * @param logger Logger used to report the progress.
+     *
+     * @return The results of the executions, in the order of the input files.
+     *
+     * @throws InterruptedException Exception thrown if the thread is interrupted while waiting for the executions.
+     */
+    public static List<Result> run(ScriptExecutor executor, String language, String script, List<File> inputFiles,
+                                   int parallelism, Logger logger) throws InterruptedException {
+        int total = inputFiles.size();
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, total)), runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Result>> futures = new ArrayList<>(total);
+            for(File input : inputFiles) {
+                futures.add(pool.submit(() -> {
+                    Map<String, Object> variables = new HashMap<>();
+                    variables.put(INPUT_VARIABLE, input);
+                    variables.put(INPUT_PATH_VARIABLE, input.getAbsolutePath());
+                    Throwable error = null;
+                    long start = System.nanoTime();
+                    try {
+                        executor.eval(language, script, variables);
+                    } catch (Throwable e) {
+                        error = e;
+                    }
+                    Result result = new Result(input, System.nanoTime() - start, error);
+                    int count = done.incrementAndGet();
+                    if(result.isSuccess()) {
+                        logger.log(Logger.LOG_INFO, "[" + count + "/" + total + "] " + input + " done in " +
+                                toMillis(result.getDuration()) + " ms");
+                    }
+                    else {
+                        logger.log(Logger.LOG_ERROR, "[" + count + "/" + total + "] " + input + " failed in " +
+                                toMillis(result.getDuration()) + " ms\n" + result.getErrorMessage());
+                    }
+                    return result;
+                }));
+            }
+            List<Result> results = new ArrayList<>(total);
+            for(Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Return the summary report of the given results.
+     *
+     * @param results Results of the executions.
+     * @param duration Total duration of the batch, in nanoseconds.
+     *
+     * @return The summary report.
+     */
+    public static String getReport(List<Result> results, long duration) {
+        long failures = results.stream().filter(result -> !result.isSuccess()).count();
+        StringBuilder sb = new StringBuilder("Batch report : ");
+        sb.append(results.size()).append(" inputs, ").append(results.size() - failures).append(" succeeded, ")
+                .append(failures).append(" failed, total ").append(toMillis(duration)).append(" ms\n");
+        for(Result result : results) {
+            sb.append(String.format("  %-7s %10s ms  %s%n", result.isSuccess() ? "OK" : "FAILED",
+                    toMillis(result.getDuration()), result.getInput()));
+            if(!result.isSuccess()) {
+                sb.append("          ").append(result.getErrorMessage()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write the given report into the given file.
+     *
+     * @param report Report to write.
+     * @param file File where the report is written.
+     *
+     * @throws IOException Exception thrown if the file cannot be written.
+     */
+    public static void writeReport(String report, File file) throws IOException {
+        Files.write(file.toPath(), report.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    /**
+     * Result of the execution of the script for one input.
+     */
+    public static final class Result {
+        private final File input;
+        private final long duration;
+        private final Throwable error;
+
+        private Result(File input, long duration, Throwable error) {
+            this.input = input;
+            this.duration = duration;
+            this.error = error;
+        }
+
+        /**
+         * Return the input file.
+         *
+         * @return The input file.
+         */
+        public File getInput() {
+            return input;
+        }
+
+        /**
+         * Return the duration of the execution in nanoseconds.
+         *
+         * @return The duration of the execution.
+         */
+        public long getDuration() {
+            return duration;
+        }
+
+        /**
+         * Indicates if the execution succeeded.
+         *
+         * @return True if the execution succeeded, false otherwise.
+         */
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        /**
+         * Return the message of the execution error, null if the execution succeeded.
+         *
+         * @return The message of the execution error.
+         */
+        public String getErrorMessage() {
+            if(error == null) {
+                return null;
+            }
+            return error.getLocalizedMessage() == null ? error.toString() : error.getLocalizedMessage();
+        }
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Root is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Root is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Root is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Root. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.apache.felix.framework.Logger;
+
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Cache of the files downloaded by the framework, stored in the workspace cache folder.
+ *
+ * Each entry is keyed by its URL and stores the downloaded content with its ETag, its Last-Modified date and its
+ * SHA-256 checksum. The HTTP downloads are done with conditional requests so an unchanged file is only revalidated
+ * and not downloaded again. The checksum is used to detect corrupted or truncated files. It is only computed when a
+ * file is written or changed : the size and the modification date of the files checked once are recorded in the entry,
+ * like in the {@link ManifestIndex}, so a warm start does not read the files again.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class DownloadCache {
+
+    /** Name of the cache folder. It should not start with 'bundle' to avoid conflicts with the Felix bundle cache. */
+    public static final String DOWNLOAD_CACHE_FOLDER_NAME = "downloads";
+
+    private static final String CONTENT_EXTENSION = ".content";
+    private static final String ENTRY_EXTENSION = ".properties";
+    private static final String PART_FILE_EXTENSION = ".part";
+    private static final String URL_KEY = "url";
+    private static final String ETAG_KEY = "etag";
+    private static final String LAST_MODIFIED_KEY = "lastModified";
+    private static final String SHA256_KEY = "sha256";
+    private static final String LENGTH_KEY = "length";
+    private static final String VALIDATED_KEY_PREFIX = "validated.";
+    private static final String SHA256 = "SHA-256";
+    private static final int BUFFER_SIZE = 64*1024;
+
+    /** Folder containing the cached files. */
+    private final File cacheFolder;
+    /** Client used to download the files. */
+    private final DownloadClient downloadClient;
+    /** Logger. */
+    private final Logger logger;
+
+    /**
+     * Main constructor.
+     *
+     * @param cacheFolder Folder containing the cached files. It is created if it does not exist.
+     * @param logger Logger.
+     */
+    public DownloadCache(File cacheFolder, Logger logger) {
+        this(cacheFolder, DownloadClient.getDefault(), logger);
+    }
+
+    /**
+     * Constructor using the given download client.
+     *
+     * @param cacheFolder Folder containing the cached files. It is created if it does not exist.
+     * @param downloadClient Client used to download the files.
+     * @param logger Logger.
+     */
+    public DownloadCache(File cacheFolder, DownloadClient downloadClient, Logger logger) {
+        this.cacheFolder = cacheFolder;
+        this.downloadClient = downloadClient;
+        this.logger = logger;
+    }
+
+    /**
+     * Download the file at the given URL into the target file. If a valid copy of the file is cached, the server is
+     * only asked if the file has changed and the cached copy is reused if not.
+     * The target file is replaced atomically once the download is complete.
+     *
+     * @param url URL of the file to download.
+     * @param target File where the downloaded file should be written.
+     *
+     * @return True if the target file contains the file of the URL, false otherwise.
+     */
+    public boolean download(URL url, File target) {
+        if(!cacheFolder.exists() && !cacheFolder.mkdirs()){
+            logger.log(Logger.LOG_WARNING, "Cannot create directory '"+cacheFolder+"'");
+            return false;
+        }
+        String key = getKey(url);
+        File contentFile = new File(cacheFolder, key + CONTENT_EXTENSION);
+        File entryFile = new File(cacheFolder, key + ENTRY_EXTENSION);
+        Properties entry = loadEntry(entryFile);
+        if(entry != null && !contentFile.exists()){
+            entry = null;
+        }
+        File partFile = null;
+        Map<String, String> headers = new HashMap<>();
+        if(entry != null){
+            if(entry.containsKey(ETAG_KEY)){
+                headers.put("If-None-Match", entry.getProperty(ETAG_KEY));
+            }
+            if(entry.containsKey(LAST_MODIFIED_KEY)){
+                headers.put("If-Modified-Since", entry.getProperty(LAST_MODIFIED_KEY));
+            }
+        }
+        try {
+            partFile = File.createTempFile(key, PART_FILE_EXTENSION, cacheFolder);
+            DownloadClient.Download download = downloadClient.download(url, headers, partFile, null);
+            if(download.getStatusCode() == HttpURLConnection.HTTP_NOT_MODIFIED){
+                if(isValid(contentFile, entry, entryFile)){
+                    logger.log(Logger.LOG_DEBUG, "'"+url+"' not modified, use the cached file");
+                    return copy(contentFile, target, entry, entryFile);
+                }
+                logger.log(Logger.LOG_WARNING, "The cached file of '"+url+"' is corrupted, download it again");
+                Files.deleteIfExists(entryFile.toPath());
+                download = downloadClient.download(url, Collections.emptyMap(), partFile, null);
+            }
+            if(download.getStatusCode() != HttpURLConnection.HTTP_OK){
+                logger.log(Logger.LOG_WARNING, "Cannot download '"+url+"', the server answered "+
+                        download.getStatusCode());
+                return false;
+            }
+            String sha256 = sha256(partFile);
+            if(sha256 == null){
+                logger.log(Logger.LOG_ERROR, "Unable to compute the "+SHA256+" checksum of '"+url+"'");
+                return false;
+            }
+            Properties newEntry = new Properties();
+            newEntry.setProperty(URL_KEY, url.toString());
+            newEntry.setProperty(SHA256_KEY, sha256);
+            newEntry.setProperty(LENGTH_KEY, Long.toString(download.getLength()));
+            if(download.getHeader("ETag") != null){
+                newEntry.setProperty(ETAG_KEY, download.getHeader("ETag"));
+            }
+            if(download.getHeader("Last-Modified") != null){
+                newEntry.setProperty(LAST_MODIFIED_KEY, download.getHeader("Last-Modified"));
+            }
+            Files.deleteIfExists(entryFile.toPath());
+            if(!move(partFile.toPath(), contentFile.toPath())){
+                return false;
+            }
+            setValidated(contentFile, newEntry);
+            saveEntry(entryFile, newEntry);
+            return copy(contentFile, target, newEntry, entryFile);
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Cannot download '"+url+"'\n"+e.getLocalizedMessage());
+            return false;
+        } finally {
+            if(partFile != null && partFile.exists() && !partFile.delete()){
+                logger.log(Logger.LOG_WARNING, "Cannot delete the temporary file '"+partFile+"'");
+            }
+        }
+    }
+
+    /**
+     * Indicates if the given file is consistent with the cached file of the given URL. A file is considered as
+     * consistent if there is no cached file for the URL or if its length and checksum match the cached ones. The
+     * checksum is not computed again if the file did not change since its last check.
+     *
+     * @param url URL of the file.
+     * @param file File to check.
+     *
+     * @return False if the file does not match the cached file of the URL, true otherwise.
+     */
+    public boolean isConsistent(URL url, File file) {
+        File entryFile = new File(cacheFolder, getKey(url) + ENTRY_EXTENSION);
+        Properties entry = loadEntry(entryFile);
+        return entry == null || isValid(file, entry, entryFile);
+    }
+
+    /**
+     * Indicates if the given file has the length and the checksum recorded in the given entry. If the file has the
+     * size and the modification date recorded when it was written or last checked, its checksum is not computed.
+     * Otherwise the file is checked with its checksum and the entry is updated if it matches.
+     *
+     * @param file File to check.
+     * @param entry Cache entry.
+     * @param entryFile File of the cache entry.
+     *
+     * @return True if the file matches the entry, false otherwise.
+     */
+    private boolean isValid(File file, Properties entry, File entryFile) {
+        if(!file.exists() || !Long.toString(file.length()).equals(entry.getProperty(LENGTH_KEY))){
+            return false;
+        }
+        String validatedKey = VALIDATED_KEY_PREFIX + file.getAbsolutePath();
+        if(Long.toString(file.lastModified()).equals(entry.getProperty(validatedKey))){
+            return true;
+        }
+        String sha256 = sha256(file);
+        if(sha256 == null || !sha256.equals(entry.getProperty(SHA256_KEY))){
+            return false;
+        }
+        setValidated(file, entry);
+        try {
+            saveEntry(entryFile, entry);
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Unable to update the cache entry '"+entryFile+"'");
+        }
+        return true;
+    }
+
+    /**
+     * Record in the given entry the modification date of the given file, whose content matches the entry.
+     *
+     * @param file File matching the entry.
+     * @param entry Cache entry.
+     */
+    private static void setValidated(File file, Properties entry) {
+        entry.setProperty(VALIDATED_KEY_PREFIX + file.getAbsolutePath(), Long.toString(file.lastModified()));
+    }
+
+    /**
+     * Copy the cached file to the target file if the target file is not already the same.
+     *
+     * @param contentFile Cached file.
+     * @param target Target file.
+     * @param entry Cache entry of the cached file.
+     * @param entryFile File of the cache entry.
+     *
+     * @return True if the target file contains the cached file, false otherwise.
+     */
+    private boolean copy(File contentFile, File target, Properties entry, File entryFile) throws IOException {
+        if(isValid(target, entry, entryFile)){
+            return true;
+        }
+        File parent = target.getAbsoluteFile().getParentFile();
+        if(!parent.exists() && !parent.mkdirs()){
+            logger.log(Logger.LOG_WARNING, "Cannot create directory '"+parent+"'");
+            return false;
+        }
+        File copyFile = File.createTempFile(target.getName(), PART_FILE_EXTENSION, cacheFolder);
+        try {
+            Files.copy(contentFile.toPath(), copyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            if(!move(copyFile.toPath(), target.toPath())){
+                return false;
+            }
+            setValidated(target, entry);
+            saveEntry(entryFile, entry);
+            return true;
+        } finally {
+            Files.deleteIfExists(copyFile.toPath());
+        }
+    }
+
+    /**
+     * Move the source file to the target one, atomically if the file system supports it.
+     *
+     * @param source Path of the file to move.
+     * @param target Destination path.
+     *
+     * @return True if the file has been moved, false otherwise.
+     */
+    private boolean move(Path source, Path target) {
+        try {
+            try {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Cannot move the file '"+source+"' to '"+target+"'");
+            return false;
+        }
+    }
+
+    /**
+     * Load the cache entry stored in the given file.
+     *
+     * @param entryFile File of the cache entry.
+     *
+     * @return The cache entry or null if there is no valid entry.
+     */
+    private Properties loadEntry(File entryFile) {
+        if(!entryFile.exists()){
+            return null;
+        }
+        Properties entry = new Properties();
+        try(InputStream in = new FileInputStream(entryFile)) {
+            entry.load(in);
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Unable to read the cache entry '"+entryFile+"'");
+            return null;
+        }
+        if(!entry.containsKey(SHA256_KEY) || !entry.containsKey(LENGTH_KEY)){
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Save the cache entry in the given file.
+     *
+     * @param entryFile File of the cache entry.
+     * @param entry Cache entry.
+     */
+    private void saveEntry(File entryFile, Properties entry) throws IOException {
+        File partFile = File.createTempFile(entryFile.getName(), PART_FILE_EXTENSION, cacheFolder);
+        try(OutputStream out = new FileOutputStream(partFile)) {
+            entry.store(out, null);
+        }
+        if(!move(partFile.toPath(), entryFile.toPath())){
+            Files.deleteIfExists(partFile.toPath());
+        }
+    }
+
+    /**
+     * Return the key of the cache entry of the given URL.
+     *
+     * @param url URL of the entry.
+     *
+     * @return The key of the entry.
+     */
+    private static String getKey(URL url) {
+        try {
+            return toHex(MessageDigest.getInstance(SHA256).digest(url.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(url.toString().hashCode());
+        }
+    }
+
+    /**
+     * Compute the SHA-256 checksum of the given file.
+     *
+     * @param file File to use.
+     *
+     * @return The hexadecimal representation of the checksum or null if it cannot be computed.
+     */
+    static String sha256(File file) {
+        try(InputStream in = new FileInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance(SHA256);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while((read = in.read(buffer)) != -1){
+                digest.update(buffer, 0, read);
+            }
+            return toHex(digest.digest());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Return the hexadecimal representation of the given bytes.
+     *
+     * @param bytes Bytes to convert.
+     *
+     * @return The hexadecimal representation of the bytes.
+     */
+    static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length*2);
+        for(byte b : bytes){
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,694 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Root is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Root is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Root is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Root. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.SocketTimeoutException;
+import java.net.URLConnection;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.UnresolvedAddressException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Client used for all the downloads of the launcher.
+ *
+ * The HTTP downloads are done with a single {@link HttpClient}, so the connections to the same host are kept alive and
+ * reused, and multiplexed when the server supports HTTP/2. The requests have a connect timeout, a response timeout and
+ * a read timeout which bounds the wait for the next bytes of the body, ask for gzip compressed content and follow the
+ * redirections. The other URLs, like the 'file:' ones, are opened with
+ * their {@link URLConnection}.
+ *
+ * Files are downloaded with {@link #download(URL, Map, File, String)}, which resumes an interrupted transfer with an
+ * HTTP Range request, retries with an exponential backoff and verifies the length and the checksum of the file.
+ *
+ * Usage :
+ * <pre>
+ *     try(DownloadClient.Response response = DownloadClient.getDefault().open(url, headers)) {
+ *         InputStream in = response.getInputStream();
+ *         ...
+ *     }
+ * </pre>
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class DownloadClient {
+
+    /** Default timeout to establish a connection. */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    /** Default timeout to receive the response headers of a request. */
+    public static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofSeconds(60);
+    /** Default timeout to receive the next bytes of a response body. */
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(30);
+    /** Default maximum number of attempts of a download. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 5;
+    /** Default delay before the first retry of a download, doubled after each failed attempt. */
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofMillis(500);
+    /** Default maximum delay between two attempts of a download. */
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+    /** Status code used for the successful responses of the non HTTP URLs. */
+    public static final int STATUS_OK = 200;
+    /** Status code of the responses to a Range request. */
+    public static final int STATUS_PARTIAL_CONTENT = 206;
+
+    private static final String HTTP = "http";
+    private static final String HTTPS = "https";
+    private static final String GZIP = "gzip";
+    private static final String IDENTITY = "identity";
+    private static final String ACCEPT_ENCODING = "Accept-Encoding";
+    private static final int BUFFER_SIZE = 64*1024;
+
+    /** Client shared by the launcher. */
+    private static volatile DownloadClient defaultClient;
+
+    /** HTTP client. */
+    private final HttpClient httpClient;
+    /** Timeout to receive the response headers of a request. */
+    private final Duration responseTimeout;
+    /** Timeout to receive the next bytes of a response body. */
+    private final Duration readTimeout;
+    /** Maximum number of attempts of a download. */
+    private final int maxAttempts;
+    /** Delay before the first retry of a download. */
+    private final Duration initialBackoff;
+    /** Maximum delay between two attempts of a download. */
+    private final Duration maxBackoff;
+
+    /**
+     * Main constructor.
+     *
+     * @param connectTimeout Timeout to establish a connection.
+     * @param responseTimeout Timeout to receive the response headers of a request.
+     */
+    public DownloadClient(Duration connectTimeout, Duration responseTimeout) {
+        this(connectTimeout, responseTimeout, DEFAULT_MAX_ATTEMPTS, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF);
+    }
+
+    /**
+     * Constructor with the retry policy of the downloads.
+     *
+     * @param connectTimeout Timeout to establish a connection.
+     * @param responseTimeout Timeout to receive the response headers of a request.
+     * @param maxAttempts Maximum number of attempts of a download.
+     * @param initialBackoff Delay before the first retry of a download, doubled after each failed attempt.
+     * @param maxBackoff Maximum delay between two attempts of a download.
+     */
+    public DownloadClient(Duration connectTimeout, Duration responseTimeout, int maxAttempts, Duration initialBackoff,
+                          Duration maxBackoff) {
+        this(connectTimeout, responseTimeout, DEFAULT_READ_TIMEOUT, maxAttempts, initialBackoff, maxBackoff);
+    }
+
+    /**
+     * Constructor with the read timeout and the retry policy of the downloads.
+     *
+     * @param connectTimeout Timeout to establish a connection.
+     * @param responseTimeout Timeout to receive the response headers of a request.
+     * @param readTimeout Timeout to receive the next bytes of a response body.
+     * @param maxAttempts Maximum number of attempts of a download.
+     * @param initialBackoff Delay before the first retry of a download, doubled after each failed attempt.
+     * @param maxBackoff Maximum delay between two attempts of a download.
+     */
+    public DownloadClient(Duration connectTimeout, Duration responseTimeout, Duration readTimeout, int maxAttempts,
+                          Duration initialBackoff, Duration maxBackoff) {
+        this.responseTimeout = responseTimeout;
+        this.readTimeout = readTimeout;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
+    /**
+     * Return the client shared by all the downloads of the launcher.
+     *
+     * @return The shared client.
+     */
+    public static DownloadClient getDefault() {
+        if(defaultClient == null) {
+            synchronized (DownloadClient.class) {
+                if(defaultClient == null) {
+                    defaultClient = new DownloadClient(DEFAULT_CONNECT_TIMEOUT, DEFAULT_RESPONSE_TIMEOUT);
+                }
+            }
+        }
+        return defaultClient;
+    }
+
+    /**
+     * Open the given URL.
+     *
+     * @param url URL to open.
+     *
+     * @return The response which should be closed once read.
+     *
+     * @throws IOException Exception thrown if the URL cannot be opened.
+     */
+    public Response open(URL url) throws IOException {
+        return open(url, Collections.emptyMap());
+    }
+
+    /**
+     * Open the given URL with the given request headers. The headers are only used for the HTTP URLs.
+     *
+     * @param url URL to open.
+     * @param headers Request headers.
+     *
+     * @return The response which should be closed once read.
+     *
+     * @throws IOException Exception thrown if the URL cannot be opened.
+     */
+    public Response open(URL url, Map<String, String> headers) throws IOException {
+        String protocol = url.getProtocol();
+        if(!HTTP.equalsIgnoreCase(protocol) && !HTTPS.equalsIgnoreCase(protocol)) {
+            URLConnection connection = url.openConnection();
+            connection.connect();
+            return new Response(STATUS_OK, connection.getContentLengthLong(), connection.getInputStream(),
+                    Collections.emptyMap());
+        }
+        HttpRequest.Builder builder;
+        try {
+            builder = HttpRequest.newBuilder(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid URL '" + url + "'", e);
+        }
+        builder.timeout(responseTimeout);
+        if(headers.keySet().stream().noneMatch(ACCEPT_ENCODING::equalsIgnoreCase)) {
+            builder.header(ACCEPT_ENCODING, GZIP);
+        }
+        headers.forEach(builder::header);
+        HttpResponse<Flow.Publisher<List<ByteBuffer>>> response;
+        try {
+            response = httpClient.send(builder.GET().build(), HttpResponse.BodyHandlers.ofPublisher());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while opening '" + url + "'");
+        }
+        BodyInputStream bodyInputStream = new BodyInputStream(url, readTimeout);
+        response.body().subscribe(bodyInputStream);
+        InputStream in = bodyInputStream;
+        long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        if(GZIP.equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(null))) {
+            try {
+                in = new GZIPInputStream(in);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+            contentLength = -1;
+        }
+        return new Response(response.statusCode(), contentLength, in, response.headers().map());
+    }
+
+    /**
+     * Download the given URL into the given file, which is replaced atomically once the download is complete and
+     * verified.
+     *
+     * @param url URL to download.
+     * @param target File where the downloaded file is written.
+     * @param expectedSha256 Expected SHA-256 checksum of the file as an hexadecimal string, null to skip the check.
+     *
+     * @return True if the file has been downloaded, false if the server answered with an error status.
+     *
+     * @throws IOException Exception thrown if the file cannot be downloaded.
+     */
+    public boolean downloadTo(URL url, File target, String expectedSha256) throws IOException {
+        File parent = target.getAbsoluteFile().getParentFile();
+        if(!parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory '" + parent + "'");
+        }
+        File partFile = new File(parent, target.getName() + ".part");
+        try {
+            Download download = download(url, Collections.emptyMap(), partFile, expectedSha256);
+            if(download.getStatusCode() != STATUS_OK) {
+                return false;
+            }
+            try {
+                Files.move(partFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } finally {
+            Files.deleteIfExists(partFile.toPath());
+        }
+    }
+
+    /**
+     * Download the given URL into the given part file.
+     *
+     * If the transfer is interrupted, it is resumed with an HTTP Range request from the bytes already written, after
+     * a delay which grows exponentially with a random jitter. If the server does not support ranges or if the file has
+     * changed, the download starts again from the beginning. The first request accepts a gzip compressed content,
+     * while the Range requests ask for the identity encoding since the ranges address the stored bytes of the file.
+     * Once the transfer is complete, the length of the file and its checksum, if given, are verified.
+     *
+     * If the server answers with a status other than 200, like 304 for a conditional request, the part file is not
+     * written and the status is returned.
+     *
+     * @param url URL to download.
+     * @param headers Request headers of the first request, like the conditional request headers.
+     * @param partFile File where the content is written. It is overwritten.
+     * @param expectedSha256 Expected SHA-256 checksum of the file as an hexadecimal string, null to skip the check.
+     *
+     * @return The result of the download.
+     *
+     * @throws IOException Exception thrown if the file cannot be downloaded after all the attempts or if it is not
+     * valid.
+     */
+    public Download download(URL url, Map<String, String> headers, File partFile, String expectedSha256)
+            throws IOException {
+        Map<String, String> requestHeaders = new HashMap<>(headers);
+        Files.deleteIfExists(partFile.toPath());
+        long written = 0;
+        long expectedLength = -1;
+        String validator = null;
+        Map<String, List<String>> responseHeaders = Collections.emptyMap();
+        for(int attempt = 0; attempt < maxAttempts; attempt++) {
+            if(attempt > 0) {
+                sleepBeforeRetry(attempt);
+            }
+            Map<String, String> attemptHeaders = requestHeaders;
+            if(written > 0) {
+                attemptHeaders = new HashMap<>(requestHeaders);
+                attemptHeaders.put(ACCEPT_ENCODING, IDENTITY);
+                attemptHeaders.put("Range", "bytes=" + written + "-");
+                if(validator != null) {
+                    attemptHeaders.put("If-Range", validator);
+                }
+            }
+            try(Response response = open(url, attemptHeaders)) {
+                boolean append = false;
+                if(written > 0 && response.getStatusCode() == STATUS_PARTIAL_CONTENT) {
+                    append = written == getRangeStart(response.getHeader("Content-Range"));
+                    if(!append) {
+                        written = 0;
+                        throw new IOException("Unexpected range '" + response.getHeader("Content-Range") +
+                                "' for '" + url + "'");
+                    }
+                }
+                else if(response.getStatusCode() == STATUS_OK) {
+                    written = 0;
+                    expectedLength = response.getContentLength();
+                    responseHeaders = response.getHeaders();
+                    validator = response.getHeader("ETag");
+                    if(validator == null || validator.startsWith("W/")) {
+                        validator = response.getHeader("Last-Modified");
+                    }
+                }
+                else if(written > 0 || response.getStatusCode() >= 500) {
+                    written = 0;
+                    throw new IOException("Cannot download '" + url + "', the server answered " +
+                            response.getStatusCode());
+                }
+                else {
+                    return new Download(response.getStatusCode(), -1, response.getHeaders());
+                }
+                try(OutputStream out = new FileOutputStream(partFile, append)) {
+                    InputStream in = response.getInputStream();
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                        written += read;
+                    }
+                }
+                if(expectedLength >= 0 && written < expectedLength) {
+                    throw new EOFException(written + " bytes received, " + expectedLength + " expected");
+                }
+                break;
+            } catch (IOException e) {
+                if(Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Interrupted while downloading '" + url + "'");
+                }
+                if(isPermanentFailure(e)) {
+                    throw e;
+                }
+                if(attempt == maxAttempts - 1) {
+                    throw new IOException("Cannot download '" + url + "' after " + maxAttempts + " attempts", e);
+                }
+            }
+        }
+        if(expectedLength >= 0 && partFile.length() != expectedLength) {
+            throw new IOException("Invalid length of '" + url + "' : " + partFile.length() + " bytes received, " +
+                    expectedLength + " expected");
+        }
+        if(expectedSha256 != null && !expectedSha256.equalsIgnoreCase(DownloadCache.sha256(partFile))) {
+            throw new IOException("Invalid checksum of '" + url + "'");
+        }
+        return new Download(STATUS_OK, partFile.length(), responseHeaders);
+    }
+
+    /**
+     * Wait before the given retry attempt : the delay is doubled after each attempt up to the maximum delay, and only
+     * a random part of its second half is kept to avoid the retries of several downloads at the same time.
+     *
+     * @param attempt Number of the attempt, starting at 1 for the first retry.
+     *
+     * @throws InterruptedIOException Exception thrown if the thread is interrupted.
+     */
+    private void sleepBeforeRetry(int attempt) throws InterruptedIOException {
+        long backoff = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 30));
+        long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry a download");
+        }
+    }
+
+    /**
+     * Indicates if the given exception is caused by a host name which cannot be resolved or by a missing file. Such
+     * failures are not retried since they are not transient network errors.
+     *
+     * @param e Exception to check.
+     *
+     * @return True if the failure is permanent, false otherwise.
+     */
+    private static boolean isPermanentFailure(IOException e) {
+        for(Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if(cause instanceof UnknownHostException || cause instanceof UnresolvedAddressException ||
+                    cause instanceof FileNotFoundException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the first byte position of the given Content-Range header.
+     *
+     * @param contentRange Value of the Content-Range header, like 'bytes 100-199/200'.
+     *
+     * @return The first byte position or -1 if the header is not valid.
+     */
+    private static long getRangeStart(String contentRange) {
+        if(contentRange == null || !contentRange.startsWith("bytes ")) {
+            return -1;
+        }
+        int index = contentRange.indexOf('-');
+        try {
+            return index < 0 ? -1 : Long.parseLong(contentRange.substring(6, index).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Result of a download.
+     */
+    public static final class Download {
+        private final int statusCode;
+        private final long length;
+        private final Map<String, List<String>> headers;
+
+        private Download(int statusCode, long length, Map<String, List<String>> headers) {
+            this.statusCode = statusCode;
+            this.length = length;
+            this.headers = headers;
+        }
+
+        /**
+         * Return the status code of the first complete response.
+         *
+         * @return The status code.
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Return the length of the downloaded file.
+         *
+         * @return The length of the file or -1 if the file has not been downloaded.
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Return the first value of the given response header.
+         *
+         * @param name Name of the header, case insensitive.
+         *
+         * @return The header value or null if not set.
+         */
+        public String getHeader(String name) {
+            return getFirstValue(headers, name);
+        }
+    }
+
+    /**
+     * Return the first value of the given header.
+     *
+     * @param headers Headers.
+     * @param name Name of the header, case insensitive.
+     *
+     * @return The header value or null if not set.
+     */
+    private static String getFirstValue(Map<String, List<String>> headers, String name) {
+        for(Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if(entry.getKey() != null && entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * InputStream of an HTTP response body. Each read waits at most the read timeout for the next bytes, then the
+     * transfer is cancelled and a {@link SocketTimeoutException} is thrown, so a server stalling in the middle of a
+     * body does not block the download thread forever.
+     */
+    private static final class BodyInputStream extends InputStream implements Flow.Subscriber<List<ByteBuffer>> {
+        /** Item marking the end of the body in the queue. */
+        private static final Object END = new Object();
+
+        private final URL url;
+        private final long readTimeout;
+        /** Received buffer lists, errors and end of body. */
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private volatile Flow.Subscription subscription;
+        private Iterator<ByteBuffer> buffers = Collections.emptyIterator();
+        private ByteBuffer current;
+        private boolean isEnded = false;
+
+        private BodyInputStream(URL url, Duration readTimeout) {
+            this.url = url;
+            this.readTimeout = readTimeout.toNanos();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            queue.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            queue.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            queue.add(END);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public int read(byte[] b, int off, int len) throws IOException {
+            if(len == 0) {
+                return 0;
+            }
+            while(current == null || !current.hasRemaining()) {
+                if(buffers.hasNext()) {
+                    current = buffers.next();
+                    continue;
+                }
+                if(isEnded) {
+                    return -1;
+                }
+                Object item;
+                try {
+                    item = queue.poll(readTimeout, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    throw new InterruptedIOException("Interrupted while reading '" + url + "'");
+                }
+                if(item == null) {
+                    close();
+                    throw new SocketTimeoutException("No data received from '" + url + "' for " +
+                            TimeUnit.NANOSECONDS.toMillis(readTimeout) + " ms");
+                }
+                if(item == END) {
+                    isEnded = true;
+                    return -1;
+                }
+                if(item instanceof Throwable) {
+                    isEnded = true;
+                    throw new IOException("Error while reading '" + url + "'", (Throwable) item);
+                }
+                buffers = ((List<ByteBuffer>) item).iterator();
+                subscription.request(1);
+            }
+            int read = Math.min(len, current.remaining());
+            current.get(b, off, read);
+            return read;
+        }
+
+        @Override
+        public void close() {
+            if(!isEnded) {
+                isEnded = true;
+                Flow.Subscription s = subscription;
+                if(s != null) {
+                    s.cancel();
+                }
+            }
+            queue.clear();
+            buffers = Collections.emptyIterator();
+            current = null;
+        }
+    }
+
+    /**
+     * Response to the opening of an URL. It should be closed to release the connection.
+     */
+    public static final class Response implements Closeable {
+        private final int statusCode;
+        private final long contentLength;
+        private final InputStream inputStream;
+        private final Map<String, List<String>> headers;
+
+        private Response(int statusCode, long contentLength, InputStream inputStream,
+                         Map<String, List<String>> headers) {
+            this.statusCode = statusCode;
+            this.contentLength = contentLength;
+            this.inputStream = inputStream;
+            this.headers = headers;
+        }
+
+        /**
+         * Return the status code of the response. The non HTTP URLs have the status {@link #STATUS_OK}.
+         *
+         * @return The status code.
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Return the length of the decoded content.
+         *
+         * @return The content length or -1 if unknown.
+         */
+        public long getContentLength() {
+            return contentLength;
+        }
+
+        /**
+         * Return the first value of the given response header.
+         *
+         * @param name Name of the header, case insensitive.
+         *
+         * @return The header value or null if not set.
+         */
+        public String getHeader(String name) {
+            return getFirstValue(headers, name);
+        }
+
+        /**
+         * Return the response headers.
+         *
+         * @return The response headers.
+         */
+        Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        /**
+         * Return the stream of the decoded content.
+         *
+         * @return The content stream.
+         */
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inputStream.close();
+        }
+    }
+}
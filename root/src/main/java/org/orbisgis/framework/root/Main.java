@@ -50,17 +50,15 @@ import javax.swing.*;
 import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 /**
  * Entry point of the framework. It only launch the OSGI service.
@@ -76,6 +74,15 @@ public class Main {
 
     private static boolean NO_FAIL_MODE = false;
     private static boolean NO_UI_MODE = true;
+    private static boolean STARTUP_REPORT = false;
+    /** Script to run in batch mode, null if not in batch mode. */
+    private static File BATCH_SCRIPT = null;
+    /** Input file or directory of the batch mode. */
+    private static File BATCH_INPUTS = null;
+    /** Number of inputs processed at the same time in batch mode. */
+    private static int BATCH_PARALLELISM = Runtime.getRuntime().availableProcessors();
+    /** Identifier of the startup phase in the {@link org.orbisgis.framework.root.StartupTimeline}. */
+    private static int startupPhase = StartupTimeline.NOT_RECORDED;
     // For test purpose only
     private static boolean TEST_MODE = false;
 
@@ -84,6 +91,7 @@ public class Main {
     private static final String OBR_REPOSITORY_SNAPSHOT_URL = "obr.repository.snapshot.url";
     private static final String MIN_ARCHETYPE = "minArchetype.properties";
     private static final String UI_ARCHETYPE = "uiArchetype.properties";
+    private static final String BATCH_ARCHETYPE = "batchArchetype.properties";
     private static final Version VERSION = new Version(6, 0, 0, "SNAPSHOT");
 
     private static final String FX11_VERSION = "11.0.1";
@@ -104,7 +112,12 @@ public class Main {
      * @param args Arguments passed to OrbisGIS at launch.
      */
     public static void main(String[] args) {
-        if(!parseArguments(args)){
+        StartupTimeline.reset();
+        startupPhase = StartupTimeline.start("startup");
+        int phase = StartupTimeline.start("parseArguments");
+        boolean isParsed = parseArguments(args);
+        StartupTimeline.end(phase);
+        if(!isParsed){
             return;
         }
         if(!checkJavaVersion()){
@@ -121,6 +134,8 @@ public class Main {
      * @see <a href=" http://felix.apache.org/documentation/subprojects/apache-felix-framework/apache-felix-framework-launching-and-embedding.html">
      */
     private static void startFelix() {
+        int startFelixPhase = StartupTimeline.start("startFelix");
+        int configPhase = StartupTimeline.start("loadConfigProperties");
         // Sets the system properties.
         if(systemWorkspace.getConfFolderPath() != null) {
             System.setProperty("felix.config.properties", "file:" + systemWorkspace.getConfFolderPath() + "config.properties");
@@ -173,36 +188,87 @@ public class Main {
             });
         }
 
+        StartupTimeline.end(configPhase);
+
         LOGGER.log(Logger.LOG_DEBUG, "Start Felix framework");
         try {
             // Create an instance of the framework.
+            int phase = StartupTimeline.start("framework.init");
             FrameworkFactory factory = getFrameworkFactory();
             m_fwk = factory.newFramework(configProps);
             m_fwk.init();
+            StartupTimeline.end(phase);
             // Use the system bundle context to process the auto-deploy
             // and auto-install/auto-start properties.
+            phase = StartupTimeline.start("AutoProcessor.process");
             AutoProcessor.process(configProps, m_fwk.getBundleContext());
+            StartupTimeline.end(phase);
             // Register the ISystemWorkspace
             m_fwk.getBundleContext().registerService(ISystemWorkspace.class, systemWorkspace, null);
             // Write the archetype in the workspace
+            phase = StartupTimeline.start("loadArchetype");
             String archetype;
-            if(NO_UI_MODE) {
+            if(BATCH_SCRIPT != null) {
+                archetype = BATCH_ARCHETYPE;
+            }
+            else if(NO_UI_MODE) {
                 archetype = MIN_ARCHETYPE;
             }
             else {
                 archetype = UI_ARCHETYPE;
             }
             File archFile = new File(systemWorkspace.getWorkspaceFolderPath(), archetype);
-            InputStream inStream = Main.class.getResourceAsStream(archetype);
-            java.nio.file.Files.copy(inStream, archFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-            inStream.close();
-            ArchetypeLoader.loadArchetype(systemWorkspace, m_fwk.getBundleContext(), archFile.getAbsolutePath(), LOGGER);
+            byte[] archContent;
+            try(InputStream inStream = Main.class.getResourceAsStream(archetype)) {
+                archContent = inStream.readAllBytes();
+            }
+            File bundleFolder = new File(systemWorkspace.getBundleFolderPath());
+            String frameworkVersion = m_fwk.getVersion().toString();
+            ArchetypeFingerprint fingerprint = new ArchetypeFingerprint(
+                    new File(systemWorkspace.getCacheFolderPath()), LOGGER);
+            boolean isArchetypeLoaded = true;
+            // If nothing changed since the last successful start and Felix already has all the bundles in its cache,
+            // skip the archetype reconciliation.
+            if(archFile.exists() &&
+                    fingerprint.matches(ArchetypeFingerprint.compute(archContent, bundleFolder, frameworkVersion)) &&
+                    ArchetypeLoader.isArchetypeInstalled(systemWorkspace, m_fwk.getBundleContext(), LOGGER)) {
+                LOGGER.log(Logger.LOG_DEBUG, "Archetype unchanged since the last start, skip its loading");
+            }
+            else {
+                fingerprint.clear();
+                java.nio.file.Files.write(archFile.toPath(), archContent);
+                isArchetypeLoaded = ArchetypeLoader.loadArchetype(systemWorkspace, m_fwk.getBundleContext(),
+                        archFile.getAbsolutePath(), LOGGER, getDownloadParallelism(configProps));
+            }
+            StartupTimeline.end(phase);
             FrameworkEvent event;
+            boolean isFirstStart = true;
             // If the framework was updated, then restart it.
             do {
                 // Start the framework.
+                phase = StartupTimeline.start("framework.start");
                 m_fwk.start();
+                StartupTimeline.end(phase);
                 LOGGER.log(Logger.LOG_DEBUG, "Felix framework successfully started");
+                if(isFirstStart){
+                    isFirstStart = false;
+                    // Only remember the archetype if all its bundles were installed, so the failed ones are retried
+                    if(isArchetypeLoaded) {
+                        fingerprint.save(ArchetypeFingerprint.compute(archContent, bundleFolder, frameworkVersion));
+                    }
+                    StartupTimeline.end(startFelixPhase);
+                    endStartupTimeline();
+                }
+                //If running in batch mode, run the script over the inputs then stop the framework
+                if(BATCH_SCRIPT != null){
+                    boolean isSuccess = runBatch();
+                    m_fwk.stop();
+                    m_fwk.waitForStop(0);
+                    if(!isSuccess && !TEST_MODE){
+                        System.exit(1);
+                    }
+                    break;
+                }
                 //If running in test mode, exit just after starting
                 if(TEST_MODE){
                     break;
@@ -218,6 +284,82 @@ public class Main {
         }
     }
 
+    /**
+     * End the startup phase, write the startup timeline next to the log file and print the critical path summary if
+     * asked with the --startupReport argument.
+     */
+    private static void endStartupTimeline() {
+        StartupTimeline.end(startupPhase);
+        File timelineFile = new File(new File(systemWorkspace.getLogFilePath()).getParentFile(),
+                StartupTimeline.TIMELINE_FILE_NAME);
+        try {
+            StartupTimeline.write(timelineFile);
+        } catch (IOException e) {
+            LOGGER.log(Logger.LOG_WARNING, "Unable to write the startup timeline '" + timelineFile + "'\n" +
+                    e.getLocalizedMessage());
+        }
+        if(STARTUP_REPORT){
+            System.out.println(StartupTimeline.getCriticalPathSummary());
+        }
+    }
+
+    /**
+     * Run the batch script over the batch inputs with the IScriptManager service of the started framework, then print
+     * the summary report and write it next to the log file.
+     *
+     * @return True if the script succeeded for all the inputs, false otherwise.
+     */
+    private static boolean runBatch() {
+        long start = System.nanoTime();
+        List<BatchRunner.Result> results;
+        try {
+            String script = new String(Files.readAllBytes(BATCH_SCRIPT.toPath()), StandardCharsets.UTF_8);
+            List<File> inputFiles = BatchRunner.getInputFiles(BATCH_INPUTS);
+            LOGGER.log(Logger.LOG_INFO, "Run the script '" + BATCH_SCRIPT + "' over " + inputFiles.size() +
+                    " inputs with " + BATCH_PARALLELISM + " workers");
+            String language = BatchRunner.getLanguage(BATCH_SCRIPT);
+            results = BatchRunner.run(BatchRunner.getScriptExecutor(m_fwk.getBundleContext(), language),
+                    language, script, inputFiles, BATCH_PARALLELISM, LOGGER);
+        } catch (Exception e) {
+            showError("Unable to run the batch script '" + BATCH_SCRIPT + "'.\n" + e.getLocalizedMessage(), false);
+            return false;
+        }
+        String report = BatchRunner.getReport(results, System.nanoTime() - start);
+        System.out.println(report);
+        File reportFile = new File(new File(systemWorkspace.getLogFilePath()).getParentFile(),
+                BatchRunner.REPORT_FILE_NAME);
+        try {
+            BatchRunner.writeReport(report, reportFile);
+        } catch (IOException e) {
+            LOGGER.log(Logger.LOG_WARNING, "Unable to write the batch report '" + reportFile + "'\n" +
+                    e.getLocalizedMessage());
+        }
+        return results.stream().allMatch(BatchRunner.Result::isSuccess);
+    }
+
+    /**
+     * Return the number of bundles of the archetype to download at the same time, read from the
+     * {@link org.orbisgis.framework.root.ArchetypeLoader#DOWNLOAD_PARALLELISM_PROPERTY} configuration property.
+     *
+     * @param configProps Felix configuration properties.
+     *
+     * @return The number of bundles to download at the same time.
+     */
+    private static int getDownloadParallelism(Map<String, String> configProps) {
+        String value = configProps.get(ArchetypeLoader.DOWNLOAD_PARALLELISM_PROPERTY);
+        if(value != null) {
+            try {
+                int parallelism = Integer.parseInt(value.trim());
+                if(parallelism > 0) {
+                    return parallelism;
+                }
+            } catch (NumberFormatException ignored) {}
+            LOGGER.log(Logger.LOG_WARNING, "Invalid value '" + value + "' for the property '" +
+                    ArchetypeLoader.DOWNLOAD_PARALLELISM_PROPERTY + "'");
+        }
+        return ArchetypeLoader.DEFAULT_DOWNLOAD_PARALLELISM;
+    }
+
     /**
      * Get the Felix FrameworkFactory.
      *
@@ -376,14 +518,14 @@ public class Main {
         }
         //Check the --noFail argument
         if(line.hasOption("noFail")){
-            LOGGER.log(Logger.LOG_INFO, "Clear the system workspace in 5 seconds.");
+            LOGGER.log(Logger.LOG_INFO, "Clear the system workspace.");
             NO_FAIL_MODE = true;
-            try {
-                Thread.sleep(5000);
-            } catch (InterruptedException e) {
-                String message = "Error while cleaning the workspace : "+e.getLocalizedMessage();
-                showError(message, true);
-            }
+        }
+        //Check the --startupReport argument
+        STARTUP_REPORT = line.hasOption("startupReport");
+        if(STARTUP_REPORT && !StartupTimeline.isEnabled()){
+            LOGGER.log(Logger.LOG_WARNING, "The startup timeline is disabled by the system property '" +
+                    StartupTimeline.ENABLED_PROPERTY + "', no startup report will be printed.");
         }
         //Check the --workspace argument
         if(line.hasOption("workspace")){
@@ -393,11 +535,44 @@ public class Main {
         else{
             systemWorkspace = new SystemWorkspace(null, VERSION.getMajor(), VERSION.getMinor(), LOGGER);
         }
-        if(!systemWorkspace.loadWorkspace(NO_FAIL_MODE)){
+        int phase = StartupTimeline.start("loadWorkspace");
+        boolean isLoaded = systemWorkspace.loadWorkspace(NO_FAIL_MODE);
+        StartupTimeline.end(phase);
+        if(!isLoaded){
             showError("Error get while loading the workspace", true);
         }
-        //Check the --noUI argument
-        if(!line.hasOption("noUI")){
+        //Check the --batch, --inputs and --parallelism arguments
+        BATCH_PARALLELISM = Runtime.getRuntime().availableProcessors();
+        if(line.hasOption("batch")){
+            BATCH_SCRIPT = new File(line.getOptionValue("batch").trim());
+            if(!BATCH_SCRIPT.isFile()){
+                showError("The batch script '" + BATCH_SCRIPT + "' does not exist", true);
+                return false;
+            }
+            if(!line.hasOption("inputs")){
+                showError("The batch mode requires the --inputs argument", true);
+                return false;
+            }
+            BATCH_INPUTS = new File(line.getOptionValue("inputs").trim());
+            if(!BATCH_INPUTS.exists()){
+                showError("The batch inputs '" + BATCH_INPUTS + "' do not exist", true);
+                return false;
+            }
+            if(line.hasOption("parallelism")){
+                try{
+                    BATCH_PARALLELISM = Math.max(1, Integer.parseInt(line.getOptionValue("parallelism").trim()));
+                } catch(NumberFormatException e){
+                    LOGGER.log(Logger.LOG_WARNING, "Invalid value '" + line.getOptionValue("parallelism") +
+                            "' for the argument --parallelism");
+                }
+            }
+        }
+        else{
+            BATCH_SCRIPT = null;
+            BATCH_INPUTS = null;
+        }
+        //Check the --noUI argument, the batch mode always runs without UI
+        if(!line.hasOption("noUI") && BATCH_SCRIPT == null){
             NO_UI_MODE = false;
             if(!isJavaFXInstalled()){
                 //loadJavaFX();
@@ -525,47 +700,19 @@ public class Main {
     private static File downloadAndUnzip(URL dlUrl, File destinationFolder){
         File zipFile = new File(destinationFolder, FX11_SDK+".zip");
         try {
-            ReadableByteChannel rbc = Channels.newChannel(dlUrl.openStream());
-            FileOutputStream fos = new FileOutputStream(zipFile);
-            fos.getChannel().transferFrom(rbc, 0, Long.MAX_VALUE);
-        } catch (FileNotFoundException e) {
-            LOGGER.log(Logger.LOG_ERROR, "Unable to open the destination file '" + zipFile + "'\n" +
-                    e.getLocalizedMessage());
+            if(!DownloadClient.getDefault().downloadTo(dlUrl, zipFile, null)) {
+                LOGGER.log(Logger.LOG_ERROR, "Unable to download the url '" + dlUrl + "'");
+                return null;
+            }
         } catch (IOException e) {
             LOGGER.log(Logger.LOG_ERROR, "Unable to download the url '" + dlUrl + "'\n" + e.getLocalizedMessage());
+            return null;
         }
 
         try {
-            File rootDirectory = null;
-            byte[] buffer = new byte[1024];
-            ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile));
-            ZipEntry zipEntry = zis.getNextEntry();
-            while (zipEntry != null) {
-                if(zipEntry.isDirectory()){
-                    Path path = Paths.get(destinationFolder.getAbsolutePath()+File.separator+zipEntry.getName());
-                    Files.createDirectories(path);
-                    if(rootDirectory == null){
-                        rootDirectory = new File(path.toUri());
-                    }
-                }
-                else {
-                    File newFile = new File(destinationFolder, zipEntry.getName());
-                    FileOutputStream fos = new FileOutputStream(newFile);
-                    int len;
-                    while ((len = zis.read(buffer)) > 0) {
-                        fos.write(buffer, 0, len);
-                    }
-                    fos.close();
-                }
-                zipEntry = zis.getNextEntry();
-            }
-            zis.closeEntry();
-            zis.close();
-            return rootDirectory;
-        } catch (FileNotFoundException e) {
-            LOGGER.log(Logger.LOG_ERROR, "File not found.\n" + e.getLocalizedMessage());
+            return ZipExtractor.extract(zipFile, destinationFolder, Runtime.getRuntime().availableProcessors());
         } catch (IOException e) {
-            LOGGER.log(Logger.LOG_ERROR, "Unable to read/write.\n" + e.getLocalizedMessage());
+            LOGGER.log(Logger.LOG_ERROR, "Unable to extract '" + zipFile + "'.\n" + e.getLocalizedMessage());
         }
         return null;
     }
@@ -621,12 +768,44 @@ public class Main {
                 .argName("filePath")
                 .build();
 
+        Option startupReportOption = Option.builder()
+                .longOpt("startupReport")
+                .desc("Print the summary of the critical path of the startup once the framework is started")
+                .build();
+
+        Option batchOption = Option.builder()
+                .longOpt("batch")
+                .desc("Run the given script over the inputs set with --inputs, then exit. The language of the " +
+                        "script is its file extension. Implies --noUI")
+                .numberOfArgs(1)
+                .argName("scriptPath")
+                .build();
+
+        Option inputsOption = Option.builder()
+                .longOpt("inputs")
+                .desc("Sets the input file or directory of the batch mode")
+                .numberOfArgs(1)
+                .argName("inputsPath")
+                .build();
+
+        Option parallelismOption = Option.builder()
+                .longOpt("parallelism")
+                .desc("Sets the number of inputs processed at the same time in batch mode. Defaults to the number " +
+                        "of processors")
+                .numberOfArgs(1)
+                .argName("workerCount")
+                .build();
+
         options.addOption(archOption);
         options.addOption(debugOption);
         options.addOption(noFailOption);
         options.addOption(noUIOption);
         options.addOption(workspaceOption);
         options.addOption(configPropertiesOption);
+        options.addOption(startupReportOption);
+        options.addOption(batchOption);
+        options.addOption(inputsOption);
+        options.addOption(parallelismOption);
         return options;
     }
 
@@ -0,0 +1,271 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Root is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Root is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Root is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Root. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.apache.felix.framework.Logger;
+import org.osgi.framework.Constants;
+
+import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * Persistent index of the manifest headers of the bundle files, stored in the workspace cache folder.
+ *
+ * Each entry is keyed by the bundle file name and is valid as long as the size and the last modification date of the
+ * file do not change, so the manifest of a bundle jar is only read again once the file has changed.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class ManifestIndex {
+
+    /** Name of the index file. It should not start with 'bundle' to avoid conflicts with the Felix bundle cache. */
+    public static final String INDEX_FILE_NAME = "manifest-index.properties";
+
+    private static final String SIZE_KEY = ".size";
+    private static final String LAST_MODIFIED_KEY = ".lastModified";
+    private static final String SYMBOLIC_NAME_KEY = ".symbolicName";
+    private static final String VERSION_KEY = ".version";
+    private static final String FRAGMENT_HOST_KEY = ".fragmentHost";
+
+    /** File where the index is stored. */
+    private final File indexFile;
+    /** Logger. */
+    private final Logger logger;
+    /** Index entries with the bundle file name as key. */
+    private final Map<String, Entry> entryMap = new ConcurrentHashMap<>();
+    /** True if the index has been modified since its loading. */
+    private volatile boolean isModified = false;
+
+    /**
+     * Main constructor. The index is loaded from the given file if it exists.
+     *
+     * @param indexFile File where the index is stored.
+     * @param logger Logger.
+     */
+    public ManifestIndex(File indexFile, Logger logger) {
+        this.indexFile = indexFile;
+        this.logger = logger;
+        load();
+    }
+
+    /**
+     * Return the index entry of the given bundle file. The manifest of the bundle is read only if the file is not
+     * indexed or if its size or its last modification date have changed.
+     *
+     * @param bundleFile Bundle file.
+     *
+     * @return The index entry of the bundle file or null if its manifest cannot be read.
+     */
+    public Entry getEntry(File bundleFile) {
+        long size = bundleFile.length();
+        long lastModified = bundleFile.lastModified();
+        Entry entry = entryMap.get(bundleFile.getName());
+        if(entry != null && entry.size == size && entry.lastModified == lastModified) {
+            return entry;
+        }
+        try(JarFile jar = new JarFile(bundleFile)){
+            Manifest manifest = jar.getManifest();
+            Attributes attributes = manifest == null ? new Attributes() : manifest.getMainAttributes();
+            entry = new Entry(size, lastModified,
+                    getSymbolicName(attributes.getValue(Constants.BUNDLE_SYMBOLICNAME)),
+                    attributes.getValue(Constants.BUNDLE_VERSION),
+                    attributes.getValue(Constants.FRAGMENT_HOST));
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Unable to read the manifest of '" + bundleFile + "'");
+            return null;
+        }
+        entryMap.put(bundleFile.getName(), entry);
+        isModified = true;
+        return entry;
+    }
+
+    /**
+     * Remove from the index the entries of the files which are not in the given collection.
+     *
+     * @param fileNames Names of the bundle files to keep.
+     */
+    public void retainAll(Collection<String> fileNames) {
+        if(entryMap.keySet().retainAll(fileNames)) {
+            isModified = true;
+        }
+    }
+
+    /**
+     * Save the index if it has been modified since its loading.
+     */
+    public void save() {
+        if(!isModified) {
+            return;
+        }
+        Properties properties = new Properties();
+        entryMap.forEach((fileName, entry) -> {
+            properties.setProperty(fileName + SIZE_KEY, Long.toString(entry.size));
+            properties.setProperty(fileName + LAST_MODIFIED_KEY, Long.toString(entry.lastModified));
+            if(entry.symbolicName != null) {
+                properties.setProperty(fileName + SYMBOLIC_NAME_KEY, entry.symbolicName);
+            }
+            if(entry.version != null) {
+                properties.setProperty(fileName + VERSION_KEY, entry.version);
+            }
+            if(entry.fragmentHost != null) {
+                properties.setProperty(fileName + FRAGMENT_HOST_KEY, entry.fragmentHost);
+            }
+        });
+        File parent = indexFile.getAbsoluteFile().getParentFile();
+        try {
+            if(!parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Cannot create directory '" + parent + "'");
+            }
+            File partFile = File.createTempFile(indexFile.getName(), ".part", parent);
+            try(OutputStream out = new FileOutputStream(partFile)) {
+                properties.store(out, "Manifest index of the bundle folder");
+            }
+            try {
+                Files.move(partFile.toPath(), indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            isModified = false;
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Unable to save the manifest index '" + indexFile + "'\n" +
+                    e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Load the index from its file.
+     */
+    private void load() {
+        if(!indexFile.exists()) {
+            return;
+        }
+        Properties properties = new Properties();
+        try(InputStream in = new FileInputStream(indexFile)) {
+            properties.load(in);
+        } catch (IOException e) {
+            logger.log(Logger.LOG_WARNING, "Unable to read the manifest index '" + indexFile + "'");
+            return;
+        }
+        for(String key : properties.stringPropertyNames()) {
+            if(!key.endsWith(SIZE_KEY)) {
+                continue;
+            }
+            String fileName = key.substring(0, key.length() - SIZE_KEY.length());
+            try {
+                entryMap.put(fileName, new Entry(
+                        Long.parseLong(properties.getProperty(fileName + SIZE_KEY)),
+                        Long.parseLong(properties.getProperty(fileName + LAST_MODIFIED_KEY)),
+                        properties.getProperty(fileName + SYMBOLIC_NAME_KEY),
+                        properties.getProperty(fileName + VERSION_KEY),
+                        properties.getProperty(fileName + FRAGMENT_HOST_KEY)));
+            } catch (NumberFormatException ignored) {
+                isModified = true;
+            }
+        }
+    }
+
+    /**
+     * Return the symbolic name without its directives, like ';singleton:=true'.
+     *
+     * @param header Value of the Bundle-SymbolicName header.
+     *
+     * @return The symbolic name.
+     */
+    private static String getSymbolicName(String header) {
+        if(header == null) {
+            return null;
+        }
+        int index = header.indexOf(';');
+        return (index < 0 ? header : header.substring(0, index)).trim();
+    }
+
+    /**
+     * Entry of the index containing the key headers of a bundle manifest.
+     */
+    public static final class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String symbolicName;
+        private final String version;
+        private final String fragmentHost;
+
+        private Entry(long size, long lastModified, String symbolicName, String version, String fragmentHost) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.symbolicName = symbolicName;
+            this.version = version;
+            this.fragmentHost = fragmentHost;
+        }
+
+        /**
+         * Return the bundle symbolic name, without its directives.
+         *
+         * @return The bundle symbolic name or null if the file is not a bundle.
+         */
+        public String getSymbolicName() {
+            return symbolicName;
+        }
+
+        /**
+         * Return the bundle version.
+         *
+         * @return The bundle version or null if not set.
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Return the value of the Fragment-Host header.
+         *
+         * @return The value of the Fragment-Host header or null if the bundle is not a fragment.
+         */
+        public String getFragmentHost() {
+            return fragmentHost;
+        }
+    }
+}
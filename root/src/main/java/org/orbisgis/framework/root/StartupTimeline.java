@@ -0,0 +1,321 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Root is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Root is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Root is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Root. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recorder of the timeline of the startup phases of the framework.
+ *
+ * The phases are recorded with {@link System#nanoTime()} into preallocated arrays, so recording a phase does not
+ * allocate any object. Phases can be recorded from several threads. If the recording is disabled with the system
+ * property {@link #ENABLED_PROPERTY} set to false, the methods return immediately.
+ *
+ * Usage :
+ * <pre>
+ *     int phase = StartupTimeline.start("phaseName", "detail");
+ *     ...
+ *     StartupTimeline.end(phase);
+ * </pre>
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public final class StartupTimeline {
+
+    /** Name of the system property used to disable the recording of the startup timeline. */
+    public static final String ENABLED_PROPERTY = "orbisgis.startup.timeline";
+    /** Name of the file where the timeline is written. */
+    public static final String TIMELINE_FILE_NAME = "startup-timeline.json";
+    /** Value returned when a phase is not recorded. */
+    public static final int NOT_RECORDED = -1;
+    /** Maximum number of phases recorded. */
+    private static final int CAPACITY = 2048;
+
+    private static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty(ENABLED_PROPERTY));
+    private static final String[] NAMES = new String[ENABLED ? CAPACITY : 0];
+    private static final String[] DETAILS = new String[ENABLED ? CAPACITY : 0];
+    private static final String[] THREADS = new String[ENABLED ? CAPACITY : 0];
+    private static final long[] STARTS = new long[ENABLED ? CAPACITY : 0];
+    private static final long[] ENDS = new long[ENABLED ? CAPACITY : 0];
+    private static final AtomicInteger COUNT = new AtomicInteger();
+    private static volatile long origin = System.nanoTime();
+
+    private StartupTimeline() {}
+
+    /**
+     * Indicates if the recording of the timeline is enabled.
+     *
+     * @return True if the timeline is recorded, false otherwise.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Clear the recorded phases and restart the timeline.
+     */
+    public static void reset() {
+        if(!ENABLED) {
+            return;
+        }
+        COUNT.set(0);
+        origin = System.nanoTime();
+    }
+
+    /**
+     * Start the recording of a phase.
+     *
+     * @param name Name of the phase.
+     * @param detail Detail of the phase, like the name of the processed bundle. Can be null.
+     *
+     * @return The identifier of the phase to give to {@link #end(int)}.
+     */
+    public static int start(String name, String detail) {
+        if(!ENABLED) {
+            return NOT_RECORDED;
+        }
+        int id = COUNT.getAndIncrement();
+        if(id >= CAPACITY) {
+            return NOT_RECORDED;
+        }
+        NAMES[id] = name;
+        DETAILS[id] = detail;
+        THREADS[id] = Thread.currentThread().getName();
+        ENDS[id] = 0;
+        STARTS[id] = System.nanoTime();
+        return id;
+    }
+
+    /**
+     * Start the recording of a phase.
+     *
+     * @param name Name of the phase.
+     *
+     * @return The identifier of the phase to give to {@link #end(int)}.
+     */
+    public static int start(String name) {
+        return start(name, null);
+    }
+
+    /**
+     * End the recording of the phase with the given identifier.
+     *
+     * @param id Identifier of the phase returned by {@link #start(String, String)}.
+     */
+    public static void end(int id) {
+        if(id != NOT_RECORDED) {
+            ENDS[id] = System.nanoTime();
+        }
+    }
+
+    /**
+     * Return a snapshot of the recorded phases which are ended.
+     *
+     * @return The list of the recorded phases.
+     */
+    static List<Phase> getPhases() {
+        List<Phase> phases = new ArrayList<>();
+        int count = Math.min(COUNT.get(), ENABLED ? CAPACITY : 0);
+        for(int i = 0; i < count; i++) {
+            if(ENDS[i] != 0) {
+                phases.add(new Phase(NAMES[i], DETAILS[i], THREADS[i], STARTS[i] - origin, ENDS[i] - origin));
+            }
+        }
+        phases.sort(Comparator.comparingLong(Phase::getStart));
+        return phases;
+    }
+
+    /**
+     * Write the recorded phases as JSON into the given file.
+     *
+     * @param file File where the timeline is written.
+     *
+     * @throws IOException Exception thrown if the file cannot be written.
+     */
+    public static void write(File file) throws IOException {
+        if(!ENABLED) {
+            return;
+        }
+        try(Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write("{\n  \"unit\" : \"ns\",\n  \"phases\" : [");
+            boolean first = true;
+            for(Phase phase : getPhases()) {
+                writer.write(first ? "\n" : ",\n");
+                first = false;
+                writer.write("    {\"name\" : " + quote(phase.name) +
+                        ", \"detail\" : " + quote(phase.detail) +
+                        ", \"thread\" : " + quote(phase.thread) +
+                        ", \"start\" : " + phase.start +
+                        ", \"end\" : " + phase.end +
+                        ", \"duration\" : " + phase.getDuration() + "}");
+            }
+            writer.write("\n  ]\n}\n");
+        }
+    }
+
+    /**
+     * Return the summary of the critical path of the recorded phases : the chain of phases which determines the end
+     * of the startup, sorted from the longest phase to the shortest one.
+     *
+     * @return The critical path summary.
+     */
+    public static String getCriticalPathSummary() {
+        List<Phase> phases = getPhases();
+        if(phases.isEmpty()) {
+            return "No startup phase recorded.\n";
+        }
+        List<Phase> criticalPath = new ArrayList<>();
+        long start = Long.MAX_VALUE;
+        long end = Long.MIN_VALUE;
+        for(Phase phase : phases) {
+            start = Math.min(start, phase.start);
+            end = Math.max(end, phase.end);
+        }
+        collectCriticalPath(phases, start, end, criticalPath);
+        criticalPath.sort(Comparator.comparingLong(Phase::getDuration).reversed());
+        long total = Math.max(1, end - start);
+        StringBuilder sb = new StringBuilder("Startup critical path (total ");
+        sb.append(toMillis(end - start)).append(" ms) :\n");
+        for(Phase phase : criticalPath) {
+            sb.append(String.format("  %10.3f ms  %5.1f%%  %s%n", phase.getDuration() / 1e6,
+                    100.0 * phase.getDuration() / total, phase.getLabel()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Walk backward from the end of the given interval to find the phases which determine its end, then descend
+     * into the phases found. The phases without child phases on the path are added to the critical path.
+     *
+     * @param phases Recorded phases.
+     * @param start Start of the interval.
+     * @param end End of the interval.
+     * @param criticalPath List where the critical phases are added.
+     */
+    private static void collectCriticalPath(List<Phase> phases, long start, long end, List<Phase> criticalPath) {
+        long cursor = end;
+        while(true) {
+            Phase last = null;
+            for(Phase phase : phases) {
+                boolean isInside = phase.start >= start && phase.start < cursor && phase.end <= cursor &&
+                        (phase.start > start || phase.end < end);
+                if(isInside && (last == null || phase.end > last.end ||
+                        (phase.end == last.end && phase.start < last.start))) {
+                    last = phase;
+                }
+            }
+            if(last == null) {
+                return;
+            }
+            int size = criticalPath.size();
+            collectCriticalPath(phases, last.start, last.end, criticalPath);
+            if(size == criticalPath.size()) {
+                criticalPath.add(last);
+            }
+            if(last.start <= start) {
+                return;
+            }
+            cursor = last.start;
+        }
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
+    private static String quote(String value) {
+        if(value == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder("\"");
+        for(char c : value.toCharArray()) {
+            switch(c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                default:
+                    if(c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    }
+                    else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    /**
+     * Recorded phase, with its start and end relative to the start of the timeline.
+     */
+    static final class Phase {
+        private final String name;
+        private final String detail;
+        private final String thread;
+        private final long start;
+        private final long end;
+
+        private Phase(String name, String detail, String thread, long start, long end) {
+            this.name = name;
+            this.detail = detail;
+            this.thread = thread;
+            this.start = start;
+            this.end = end;
+        }
+
+        long getStart() {
+            return start;
+        }
+
+        long getDuration() {
+            return end - start;
+        }
+
+        String getLabel() {
+            return detail == null ? name : name + " [" + detail + "]";
+        }
+    }
+}
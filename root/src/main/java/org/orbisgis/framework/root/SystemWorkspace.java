@@ -39,6 +39,16 @@ package org.orbisgis.framework.root;
 import org.apache.felix.framework.Logger;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of the ISystemWorkspace interface.
@@ -56,6 +66,8 @@ public class SystemWorkspace implements ISystemWorkspace {
     private final String workspacePath;
     /** Logger.*/
     private final Logger logger;
+    /** Future of the deletion of the cleared workspaces, completed with true if all the files have been deleted.*/
+    private CompletableFuture<Boolean> deletionFuture = CompletableFuture.completedFuture(true);
 
     private static final String TEMP_FOLDER_NAME = "tmp";
     private static final String APPLICATION_FOLDER_NAME = "app";
@@ -63,6 +75,8 @@ public class SystemWorkspace implements ISystemWorkspace {
     private static final String CACHE_FOLDER_NAME = "cache";
     private static final String CONF_FOLDER_NAME = "conf";
     private static final String LOG_FILE_NAME = "orbisgis.log";
+    /** Infix of the name of the renamed workspaces waiting to be deleted.*/
+    private static final String TOMBSTONE_INFIX = ".deleted-";
 
     /**
      * Main constructor. It initialize all the mandatory information about the workspace. Once done, the method
@@ -103,17 +117,133 @@ public class SystemWorkspace implements ISystemWorkspace {
         return ret;
     }
 
+    /**
+     * Rename the given workspace folder into a tombstone folder next to it, so a new workspace can be created at once
+     * while the old one is deleted in background. If the folder cannot be renamed, it is cleared synchronously.
+     *
+     * @param workspaceFile Workspace folder to clear.
+     *
+     * @return True if the workspace has been renamed or cleared, false otherwise.
+     */
+    private boolean clearWorkspace(File workspaceFile){
+        Path workspace = workspaceFile.getAbsoluteFile().toPath();
+        Path tombstone = workspace.resolveSibling(workspace.getFileName() + TOMBSTONE_INFIX + UUID.randomUUID());
+        try {
+            Files.move(workspace, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Logger.LOG_DEBUG, "Unable to rename the workspace '" + workspace + "', clear it in place");
+            return deleteSubFile(workspaceFile);
+        }
+        return true;
+    }
+
+    /**
+     * Delete in background the tombstone folders of the workspace, created when it was cleared during this start or
+     * a previous one. The files are deleted in parallel by daemon threads.
+     */
+    private void deleteTombstones(){
+        Path workspace = new File(getWorkspaceFolderPath()).getAbsoluteFile().toPath();
+        Path parent = workspace.getParent();
+        List<Path> tombstones = new ArrayList<>();
+        if(parent != null) {
+            String prefix = workspace.getFileName() + TOMBSTONE_INFIX;
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(parent,
+                    path -> path.getFileName().toString().startsWith(prefix))) {
+                stream.forEach(tombstones::add);
+            } catch (IOException | DirectoryIteratorException e) {
+                logger.log(Logger.LOG_WARNING, "Unable to list the cleared workspaces of '" + workspace + "'");
+            }
+        }
+        if(tombstones.isEmpty()){
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), r -> {
+            Thread thread = new Thread(r, "Workspace deletion " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for(Path tombstone : tombstones) {
+            List<CompletableFuture<Boolean>> childFutures = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(tombstone)) {
+                for(Path child : stream) {
+                    childFutures.add(CompletableFuture.supplyAsync(() -> deleteTree(child), executor));
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                logger.log(Logger.LOG_WARNING, "Unable to list the cleared workspace '" + tombstone + "'");
+            }
+            futures.add(CompletableFuture.allOf(childFutures.toArray(new CompletableFuture[0]))
+                    .thenApplyAsync(ignored -> childFutures.stream().allMatch(CompletableFuture::join) &&
+                            deleteTree(tombstone), executor));
+        }
+        deletionFuture = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> futures.stream().allMatch(CompletableFuture::join))
+                .whenComplete((result, throwable) -> {
+                    executor.shutdown();
+                    if(Boolean.TRUE.equals(result)) {
+                        logger.log(Logger.LOG_DEBUG, "Cleared workspaces of '" + workspace + "' deleted");
+                    }
+                    else {
+                        logger.log(Logger.LOG_WARNING, "Unable to delete all the cleared workspaces of '" +
+                                workspace + "'");
+                    }
+                });
+    }
+
+    /**
+     * Delete the given file or folder with all its content.
+     *
+     * @param root File or folder to delete.
+     *
+     * @return True if everything has been deleted, false otherwise.
+     */
+    private static boolean deleteTree(Path root){
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    if(exc != null) {
+                        throw exc;
+                    }
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Return the future of the background deletion of the cleared workspaces.
+     *
+     * @return The future completed with true once all the files have been deleted, false if some were not deleted.
+     */
+    CompletableFuture<Boolean> getDeletionFuture(){
+        return deletionFuture;
+    }
+
     @Override
     public boolean loadWorkspace(boolean clear) {
         logger.log(Logger.LOG_DEBUG, "Loading workspace '"+getWorkspaceFolderPath()+"'");
         File workspaceFile = new File(getWorkspaceFolderPath());
         if(clear && workspaceFile.exists()){
-            if(!deleteSubFile(workspaceFile)) {
+            if(!clearWorkspace(workspaceFile)) {
                 logger.log(Logger.LOG_ERROR, "Unable to clear workspace '" + getWorkspaceFolderPath() + "'");
                 return false;
             }
             logger.log(Logger.LOG_DEBUG, "Workspace '"+getWorkspaceFolderPath()+"' cleared");
         }
+        deleteTombstones();
         if(!createFolder(workspaceFile, "workspace")) {
             logger.log(Logger.LOG_ERROR, "Unable to create workspace '"+getWorkspaceFolderPath()+"'");
             return false;
@@ -0,0 +1,147 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Root is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Root is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Root is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Root. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Extractor of zip archives.
+ *
+ * The archive is read with a {@link ZipFile}, so its entries are accessed randomly and extracted in parallel on a
+ * {@link ForkJoinPool}. All the directories are created first, in the archive order, then the files are extracted
+ * by copying the inflated stream of their entry. The entries which would be extracted outside of the destination
+ * folder (zip-slip) are rejected before anything is written.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public final class ZipExtractor {
+
+    private ZipExtractor() {}
+
+    /**
+     * Extract the given zip file into the destination folder.
+     *
+     * @param zipFile Zip file to extract.
+     * @param destinationFolder Folder where the archive is extracted.
+     * @param parallelism Number of entries extracted at the same time.
+     *
+     * @return The first directory of the archive, or null if the archive contains no directory.
+     *
+     * @throws IOException Exception thrown if the archive cannot be read, if a file cannot be written or if an entry
+     * is outside of the destination folder.
+     */
+    public static File extract(File zipFile, File destinationFolder, int parallelism) throws IOException {
+        Path destination = destinationFolder.getAbsoluteFile().toPath().normalize();
+        try(ZipFile zip = new ZipFile(zipFile)) {
+            //Check all the entries and collect the directories in the archive order
+            Set<Path> directories = new LinkedHashSet<>();
+            Map<ZipEntry, Path> files = new LinkedHashMap<>();
+            File rootDirectory = null;
+            for(Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+                ZipEntry entry = entries.nextElement();
+                Path path = destination.resolve(entry.getName()).normalize();
+                if(!path.startsWith(destination) || path.equals(destination)) {
+                    throw new IOException("The entry '" + entry.getName() + "' is outside of the destination folder");
+                }
+                if(entry.isDirectory()) {
+                    directories.add(path);
+                    if(rootDirectory == null) {
+                        rootDirectory = path.toFile();
+                    }
+                }
+                else {
+                    directories.add(path.getParent());
+                    files.put(entry, path);
+                }
+            }
+            for(Path directory : directories) {
+                Files.createDirectories(directory);
+            }
+
+            //Extract the files in parallel
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+            try {
+                pool.submit(() -> files.entrySet().parallelStream().forEach(entry -> {
+                    try {
+                        extractEntry(zip, entry.getKey(), entry.getValue());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while extracting '" + zipFile + "'", e);
+            } catch (ExecutionException e) {
+                if(e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw new IOException("Unable to extract '" + zipFile + "'", e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+            return rootDirectory;
+        }
+    }
+
+    /**
+     * Extract the given entry into the given file.
+     *
+     * @param zip Zip file.
+     * @param entry Entry to extract.
+     * @param path Path of the extracted file.
+     *
+     * @throws IOException Exception thrown if the entry cannot be read or the file cannot be written.
+     */
+    private static void extractEntry(ZipFile zip, ZipEntry entry, Path path) throws IOException {
+        //The entry is inflated into a heap buffer anyway, so a plain stream copy avoids any intermediate copy
+        try(InputStream in = zip.getInputStream(entry)) {
+            Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
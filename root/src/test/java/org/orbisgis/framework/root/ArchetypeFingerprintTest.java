@@ -0,0 +1,84 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Framework is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Framework is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Framework is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Framework. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.apache.felix.framework.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.framework.root.ArchetypeFingerprint} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class ArchetypeFingerprintTest {
+
+    private Logger logger = new Logger();
+
+    @Test
+    void fingerprintTest() throws IOException {
+        File root = new File("target", UUID.randomUUID().toString());
+        File bundleFolder = new File(root, "bundle");
+        assertTrue(bundleFolder.mkdirs());
+        Files.write(new File(bundleFolder, "a.jar").toPath(), new byte[10]);
+        byte[] archetype = "bundle.a=file:a.jar".getBytes(StandardCharsets.UTF_8);
+
+        ArchetypeFingerprint fingerprint = new ArchetypeFingerprint(root, logger);
+        String value = ArchetypeFingerprint.compute(archetype, bundleFolder, "5.6.10");
+        assertFalse(fingerprint.matches(value));
+        fingerprint.save(value);
+        assertTrue(fingerprint.matches(ArchetypeFingerprint.compute(archetype, bundleFolder, "5.6.10")));
+
+        //Any change of the archetype, of the bundle folder or of the framework version changes the fingerprint
+        assertFalse(fingerprint.matches(ArchetypeFingerprint.compute(
+                "bundle.b=file:b.jar".getBytes(StandardCharsets.UTF_8), bundleFolder, "5.6.10")));
+        assertFalse(fingerprint.matches(ArchetypeFingerprint.compute(archetype, bundleFolder, "6.0.0")));
+        Files.write(new File(bundleFolder, "b.jar").toPath(), new byte[10]);
+        assertFalse(fingerprint.matches(ArchetypeFingerprint.compute(archetype, bundleFolder, "5.6.10")));
+
+        fingerprint.clear();
+        assertFalse(fingerprint.matches(value));
+    }
+}
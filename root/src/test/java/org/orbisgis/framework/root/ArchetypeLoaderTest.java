@@ -0,0 +1,253 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Framework is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Framework is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Framework is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Framework. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.apache.felix.framework.FrameworkFactory;
+import org.apache.felix.framework.Logger;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleException;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.framework.root.ArchetypeLoader} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class ArchetypeLoaderTest {
+
+    private Logger logger = new Logger();
+
+    /**
+     * Create a fake bundle file with the given name and size into the given folder.
+     */
+    private static File createSourceFile(File folder, String name, int size) throws IOException {
+        File file = new File(folder, name);
+        byte[] content = new byte[size];
+        for(int i=0; i<size; i++){
+            content[i] = (byte)i;
+        }
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    @Test
+    void loadArchetypeDownloadTest() throws IOException {
+        File root = new File("target", UUID.randomUUID().toString());
+        File sourceFolder = new File(root, "source");
+        assertTrue(sourceFolder.mkdirs());
+        SystemWorkspace systemWorkspace = new SystemWorkspace(new File(root, "workspace").getAbsolutePath(), 0, 0,
+                logger);
+        assertTrue(systemWorkspace.loadWorkspace(false));
+
+        Properties properties = new Properties();
+        for(int i=0; i<10; i++) {
+            File source = createSourceFile(sourceFolder, "bundle"+i+".jar", 1024*(i+1));
+            properties.setProperty("bundle.b"+i, source.toURI().toString());
+        }
+        properties.setProperty("bundle.missing", new File(sourceFolder, "missing.jar").toURI().toString());
+        properties.setProperty("bundle.malformed", "notAnUrl");
+        File archetype = new File(root, "archetype.properties");
+        try(OutputStream out = new FileOutputStream(archetype)) {
+            properties.store(out, null);
+        }
+
+        //The missing and malformed bundles are reported as a failure
+        assertFalse(ArchetypeLoader.loadArchetype(systemWorkspace, null, archetype.getAbsolutePath(), logger, 3));
+
+        File bundleFolder = new File(systemWorkspace.getBundleFolderPath());
+        for(int i=0; i<10; i++) {
+            File bundle = new File(bundleFolder, "bundle"+i+".jar");
+            assertTrue(bundle.exists());
+            assertArrayEquals(Files.readAllBytes(new File(sourceFolder, "bundle"+i+".jar").toPath()),
+                    Files.readAllBytes(bundle.toPath()));
+        }
+        assertFalse(new File(bundleFolder, "missing.jar").exists());
+        assertEquals(10, bundleFolder.list().length);
+        assertEquals(0, new File(systemWorkspace.getTempFolderPath()).list().length);
+    }
+
+    /**
+     * Create a bundle jar with only a manifest into the given folder.
+     */
+    private static File createBundleFile(File folder, String symbolicName, String exportPackage, String importPackage)
+            throws IOException {
+        return createBundleFile(folder, symbolicName, exportPackage, importPackage, null);
+    }
+
+    /**
+     * Create a bundle jar with only a manifest declaring the given activator into the given folder.
+     */
+    private static File createBundleFile(File folder, String symbolicName, String exportPackage, String importPackage,
+                                         String activator) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue(Constants.BUNDLE_MANIFESTVERSION, "2");
+        attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, symbolicName);
+        attributes.putValue(Constants.BUNDLE_VERSION, "1.0.0");
+        if(exportPackage != null) {
+            attributes.putValue(Constants.EXPORT_PACKAGE, exportPackage);
+        }
+        if(importPackage != null) {
+            attributes.putValue(Constants.IMPORT_PACKAGE, importPackage);
+        }
+        if(activator != null) {
+            attributes.putValue(Constants.BUNDLE_ACTIVATOR, activator);
+        }
+        File file = new File(folder, symbolicName + ".jar");
+        try(JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest)) {
+            out.flush();
+        }
+        return file;
+    }
+
+    @Test
+    void loadArchetypeInstallTest() throws IOException, BundleException {
+        File root = new File("target", UUID.randomUUID().toString());
+        File sourceFolder = new File(root, "source");
+        assertTrue(sourceFolder.mkdirs());
+        SystemWorkspace systemWorkspace = new SystemWorkspace(new File(root, "workspace").getAbsolutePath(), 0, 0,
+                logger);
+        assertTrue(systemWorkspace.loadWorkspace(false));
+
+        Properties properties = new Properties();
+        properties.setProperty("bundle.api", createBundleFile(sourceFolder, "test.api", "test.api", null)
+                .toURI().toString());
+        properties.setProperty("bundle.impl", createBundleFile(sourceFolder, "test.impl", "test.impl", "test.api")
+                .toURI().toString());
+        properties.setProperty("bundle.client", createBundleFile(sourceFolder, "test.client", null,
+                "test.api, test.impl").toURI().toString());
+        properties.setProperty("bundle.unresolved", createBundleFile(sourceFolder, "test.unresolved", null,
+                "test.missing").toURI().toString());
+        File archetype = new File(root, "archetype.properties");
+        try(OutputStream out = new FileOutputStream(archetype)) {
+            properties.store(out, null);
+        }
+
+        Map<String, String> configProps = new HashMap<>();
+        configProps.put(Constants.FRAMEWORK_STORAGE, systemWorkspace.getCacheFolderPath());
+        Framework framework = new FrameworkFactory().newFramework(configProps);
+        framework.init();
+        try {
+            assertTrue(ArchetypeLoader.loadArchetype(systemWorkspace, framework.getBundleContext(),
+                    archetype.getAbsolutePath(), logger, 2));
+            for(String name : new String[]{"test.api", "test.impl", "test.client"}) {
+                Bundle bundle = framework.getBundleContext().getBundle(name + ".jar");
+                assertNotNull(bundle);
+                assertEquals(Bundle.RESOLVED, bundle.getState());
+            }
+            Bundle unresolved = framework.getBundleContext().getBundle("test.unresolved.jar");
+            assertNotNull(unresolved);
+            assertEquals(Bundle.INSTALLED, unresolved.getState());
+
+            framework.start();
+            for(String name : new String[]{"test.api", "test.impl", "test.client"}) {
+                assertEquals(Bundle.ACTIVE, framework.getBundleContext().getBundle(name + ".jar").getState());
+            }
+
+            //A second loading does not install the bundles again
+            int bundleCount = framework.getBundleContext().getBundles().length;
+            StartupTimeline.reset();
+            assertTrue(ArchetypeLoader.loadArchetype(systemWorkspace, framework.getBundleContext(),
+                    archetype.getAbsolutePath(), logger, 2));
+            assertEquals(bundleCount, framework.getBundleContext().getBundles().length);
+            //The installed bundles are recognized, so their installation is skipped
+            for(StartupTimeline.Phase phase : StartupTimeline.getPhases()) {
+                assertFalse(phase.getLabel().startsWith("archetype.install ["), phase.getLabel());
+            }
+
+            //The archetype is only considered as installed while all its bundles are in the framework
+            assertTrue(ArchetypeLoader.isArchetypeInstalled(systemWorkspace, framework.getBundleContext(), logger));
+            framework.getBundleContext().getBundle("test.client.jar").uninstall();
+            assertFalse(ArchetypeLoader.isArchetypeInstalled(systemWorkspace, framework.getBundleContext(), logger));
+        } finally {
+            framework.stop();
+        }
+    }
+
+    @Test
+    void loadArchetypeStartFailureTest() throws IOException, BundleException {
+        File root = new File("target", UUID.randomUUID().toString());
+        File sourceFolder = new File(root, "source");
+        assertTrue(sourceFolder.mkdirs());
+        SystemWorkspace systemWorkspace = new SystemWorkspace(new File(root, "workspace").getAbsolutePath(), 0, 0,
+                logger);
+        assertTrue(systemWorkspace.loadWorkspace(false));
+
+        Properties properties = new Properties();
+        properties.setProperty("bundle.api", createBundleFile(sourceFolder, "test.api", "test.api", null)
+                .toURI().toString());
+        properties.setProperty("bundle.broken", createBundleFile(sourceFolder, "test.broken", null, null,
+                "test.broken.MissingActivator").toURI().toString());
+        File archetype = new File(root, "archetype.properties");
+        try(OutputStream out = new FileOutputStream(archetype)) {
+            properties.store(out, null);
+        }
+
+        Map<String, String> configProps = new HashMap<>();
+        configProps.put(Constants.FRAMEWORK_STORAGE, systemWorkspace.getCacheFolderPath());
+        Framework framework = new FrameworkFactory().newFramework(configProps);
+        framework.start();
+        try {
+            //The bundle whose activator is missing cannot be started, so the loading is not complete
+            assertFalse(ArchetypeLoader.loadArchetype(systemWorkspace, framework.getBundleContext(),
+                    archetype.getAbsolutePath(), logger, 2));
+            assertEquals(Bundle.ACTIVE, framework.getBundleContext().getBundle("test.api.jar").getState());
+            assertNotEquals(Bundle.ACTIVE, framework.getBundleContext().getBundle("test.broken.jar").getState());
+        } finally {
+            framework.stop();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Framework is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Framework is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Framework is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Framework. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.apache.felix.framework.FrameworkFactory;
+import org.apache.felix.framework.Logger;
+import org.junit.jupiter.api.Test;
+import org.orbisgis.scriptmanager.ScriptManager;
+import org.orbisgis.scriptmanagerapi.IScriptManager;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.framework.launch.Framework;
+
+import javax.script.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.framework.root.BatchRunner} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class BatchRunnerTest {
+
+    private Logger logger = new Logger();
+
+    @Test
+    void getInputFilesTest() throws IOException {
+        File folder = new File("target", UUID.randomUUID().toString());
+        assertTrue(new File(folder, "subFolder").mkdirs());
+        for(String name : new String[]{"c.csv", "a.csv", "b.csv"}) {
+            assertTrue(new File(folder, name).createNewFile());
+        }
+        List<File> inputs = BatchRunner.getInputFiles(folder);
+        assertEquals(Arrays.asList(new File(folder, "a.csv"), new File(folder, "b.csv"), new File(folder, "c.csv")),
+                inputs);
+        assertEquals(Collections.singletonList(new File(folder, "a.csv")),
+                BatchRunner.getInputFiles(new File(folder, "a.csv")));
+        assertThrows(IOException.class, () -> BatchRunner.getInputFiles(new File(folder, "missing")));
+
+        assertEquals("groovy", BatchRunner.getLanguage(new File("script.groovy")));
+        assertEquals("js", BatchRunner.getLanguage(new File("folder.a/script.b.js")));
+    }
+
+    @Test
+    void runTest() throws InterruptedException, IOException {
+        logger.setLogLevel(Logger.LOG_ERROR);
+        List<File> inputs = new ArrayList<>();
+        for(int i = 0; i < 20; i++) {
+            inputs.add(new File("input" + i + ".csv"));
+        }
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<BatchRunner.Result> results = BatchRunner.run((language, script, variables) -> {
+            assertEquals("groovy", language);
+            assertEquals("script", script);
+            threads.add(Thread.currentThread().getName());
+            File input = (File) variables.get(BatchRunner.INPUT_VARIABLE);
+            assertEquals(input.getAbsolutePath(), variables.get(BatchRunner.INPUT_PATH_VARIABLE));
+            Thread.sleep(10);
+            if(input.getName().equals("input3.csv")) {
+                throw new IllegalStateException("bad input");
+            }
+            return null;
+        }, "groovy", "script", inputs, 4, logger);
+
+        assertEquals(20, results.size());
+        assertTrue(threads.size() > 1 && threads.size() <= 4);
+        for(int i = 0; i < 20; i++) {
+            BatchRunner.Result result = results.get(i);
+            assertEquals(inputs.get(i), result.getInput());
+            assertTrue(result.getDuration() > 0);
+            assertEquals(i != 3, result.isSuccess());
+        }
+        assertEquals("bad input", results.get(3).getErrorMessage());
+
+        String report = BatchRunner.getReport(results, 1_000_000);
+        assertTrue(report.startsWith("Batch report : 20 inputs, 19 succeeded, 1 failed, total 1.000 ms"));
+        assertTrue(report.contains("FAILED"));
+        assertTrue(report.contains("bad input"));
+        File file = new File("target", UUID.randomUUID().toString() + ".txt");
+        BatchRunner.writeReport(report, file);
+        assertEquals(report, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void runWithScriptManagerTest() throws Exception {
+        logger.setLogLevel(Logger.LOG_ERROR);
+        File folder = new File("target", UUID.randomUUID().toString());
+        assertTrue(folder.mkdirs());
+        for(String name : new String[]{"a.csv", "b.csv", "fail.csv"}) {
+            assertTrue(new File(folder, name).createNewFile());
+        }
+        Map<String, String> configProps = new HashMap<>();
+        configProps.put(Constants.FRAMEWORK_STORAGE, new File(folder, "cache").getAbsolutePath());
+        Framework framework = new FrameworkFactory().newFramework(configProps);
+        framework.start();
+        ScriptManager scriptManager = new ScriptManager();
+        try {
+            BundleContext bundleContext = framework.getBundleContext();
+            //Without any bundle providing the service, the batch fails without waiting for it
+            long start = System.nanoTime();
+            Exception exception = assertThrows(Exception.class,
+                    () -> BatchRunner.getScriptExecutor(bundleContext, "stub"));
+            assertTrue(exception.getMessage().startsWith("No installed bundle provides the service"));
+            assertTrue(System.nanoTime() - start < 10_000_000_000L);
+
+            scriptManager.activate(bundleContext);
+            scriptManager.addScriptEngineFactory(new StubScriptEngineFactory());
+            bundleContext.registerService(IScriptManager.class, scriptManager, null);
+
+            //An unsupported language is reported with the available ones before running any script
+            exception = assertThrows(Exception.class, () -> BatchRunner.getScriptExecutor(bundleContext, "other"));
+            assertTrue(exception.getMessage().startsWith("No script engine available for the language 'other'"));
+            assertTrue(exception.getMessage().contains("stub"));
+
+            List<File> inputs = BatchRunner.getInputFiles(folder);
+            List<BatchRunner.Result> results = BatchRunner.run(BatchRunner.getScriptExecutor(bundleContext, "stub"),
+                    "stub", "script", inputs, 2, logger);
+            assertEquals(3, results.size());
+            assertTrue(results.get(0).isSuccess());
+            assertTrue(results.get(1).isSuccess());
+            assertFalse(results.get(2).isSuccess());
+            assertEquals("Failure of " + inputs.get(2).getAbsolutePath(), results.get(2).getErrorMessage());
+            assertTrue(BatchRunner.getReport(results, 1_000_000)
+                    .startsWith("Batch report : 3 inputs, 2 succeeded, 1 failed"));
+        } finally {
+            scriptManager.deactivate();
+            framework.stop();
+            framework.waitForStop(0);
+        }
+    }
+
+    /**
+     * ScriptEngineFactory of the 'stub' language, whose scripts fail for the inputs named 'fail'.
+     */
+    private static class StubScriptEngineFactory implements ScriptEngineFactory {
+        @Override public String getEngineName() {return "stub";}
+        @Override public String getEngineVersion() {return "1.0";}
+        @Override public List<String> getExtensions() {return Collections.singletonList("stub");}
+        @Override public List<String> getMimeTypes() {return Collections.emptyList();}
+        @Override public List<String> getNames() {return Collections.singletonList("stub");}
+        @Override public String getLanguageName() {return "stub";}
+        @Override public String getLanguageVersion() {return "1.0";}
+        @Override public Object getParameter(String key) {return null;}
+        @Override public String getMethodCallSyntax(String obj, String m, String... args) {return null;}
+        @Override public String getOutputStatement(String toDisplay) {return null;}
+        @Override public String getProgram(String... statements) {return null;}
+        @Override
+        public ScriptEngine getScriptEngine() {
+            ScriptEngineFactory factory = this;
+            return new AbstractScriptEngine() {
+                @Override
+                public Object eval(String script, ScriptContext context) throws ScriptException {
+                    File input = (File) context.getAttribute(BatchRunner.INPUT_VARIABLE);
+                    if(input.getName().startsWith("fail")) {
+                        throw new ScriptException("Failure of " + context.getAttribute(BatchRunner.INPUT_PATH_VARIABLE));
+                    }
+                    return input;
+                }
+                @Override public Object eval(Reader reader, ScriptContext context) {return null;}
+                @Override public Bindings createBindings() {return new SimpleBindings();}
+                @Override public ScriptEngineFactory getFactory() {return factory;}
+            };
+        }
+    }
+}
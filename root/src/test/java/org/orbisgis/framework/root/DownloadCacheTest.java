@@ -0,0 +1,150 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Framework is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Framework is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Framework is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Framework. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.felix.framework.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.framework.root.DownloadCache} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class DownloadCacheTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private Logger logger = new Logger();
+    private HttpServer server;
+    private byte[] content;
+    private AtomicInteger fullDownloads = new AtomicInteger();
+    private AtomicInteger notModified = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        content = new byte[100*1024];
+        for(int i=0; i<content.length; i++){
+            content[i] = (byte)(i%251);
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/bundle.jar", exchange -> {
+            if(ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            }
+            else {
+                fullDownloads.incrementAndGet();
+                exchange.getResponseHeaders().add("ETag", ETAG);
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void conditionalDownloadTest() throws IOException {
+        File root = new File("target", UUID.randomUUID().toString());
+        DownloadCache cache = new DownloadCache(new File(root, "cache"), logger);
+        URL url = new URL("http://localhost:"+server.getAddress().getPort()+"/bundle.jar?a=bundle&v=LATEST");
+        File target = new File(root, "bundle.jar");
+
+        assertTrue(cache.download(url, target));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(1, fullDownloads.get());
+        assertEquals(0, notModified.get());
+
+        //Second download only revalidates the cached file
+        assertTrue(cache.download(url, target));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(1, fullDownloads.get());
+        assertEquals(1, notModified.get());
+        assertTrue(cache.isConsistent(url, target));
+
+        //An unchanged file is not hashed again : a same size content with the same date is not detected
+        long lastModified = target.lastModified();
+        Files.write(target.toPath(), new byte[content.length]);
+        assertTrue(target.setLastModified(lastModified));
+        assertTrue(cache.isConsistent(url, target));
+        //A changed date makes the file be hashed again
+        assertTrue(target.setLastModified(lastModified - 10_000));
+        assertFalse(cache.isConsistent(url, target));
+
+        //A truncated target file is detected and restored from the cache
+        Files.write(target.toPath(), new byte[10]);
+        assertFalse(cache.isConsistent(url, target));
+        assertTrue(cache.download(url, target));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(1, fullDownloads.get());
+        assertEquals(2, notModified.get());
+    }
+
+    @Test
+    void unknownUrlTest() throws IOException {
+        File root = new File("target", UUID.randomUUID().toString());
+        DownloadCache cache = new DownloadCache(new File(root, "cache"), logger);
+        URL url = new URL("http://localhost:"+server.getAddress().getPort()+"/missing.jar");
+        File target = new File(root, "missing.jar");
+        assertTrue(cache.isConsistent(url, target));
+        assertFalse(cache.download(url, target));
+        assertFalse(target.exists());
+    }
+}
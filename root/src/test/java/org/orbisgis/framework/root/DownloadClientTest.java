@@ -0,0 +1,269 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Framework is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Framework is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Framework is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Framework. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.framework.root.DownloadClient} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class DownloadClientTest {
+
+    private HttpServer server;
+    private byte[] content;
+    private AtomicInteger flakyRequests = new AtomicInteger();
+    private List<String> ranges = new CopyOnWriteArrayList<>();
+    private List<String> encodings = new CopyOnWriteArrayList<>();
+    private CountDownLatch stallLatch = new CountDownLatch(1);
+
+    @BeforeEach
+    void startServer() throws IOException {
+        content = new byte[50*1024];
+        for(int i=0; i<content.length; i++){
+            content[i] = (byte)(i%13);
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/file", exchange -> {
+            if(exchange.getRequestHeaders().containsKey("X-Test")) {
+                exchange.getResponseHeaders().add("X-Test", exchange.getRequestHeaders().getFirst("X-Test"));
+            }
+            encodings.add(String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+            if("gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"))){
+                exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                    out.write(content);
+                }
+            }
+            else {
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(content);
+                }
+            }
+            exchange.close();
+        });
+        //Drops the connection in the middle of the first two transfers and supports the Range requests
+        server.createContext("/flaky", exchange -> {
+            int request = flakyRequests.incrementAndGet();
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            int start = 0;
+            if(range != null) {
+                ranges.add(range);
+                start = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + start + "-" + (content.length - 1) + "/" + content.length);
+                exchange.sendResponseHeaders(206, content.length - start);
+            }
+            else {
+                exchange.getResponseHeaders().add("ETag", "\"flaky\"");
+                exchange.sendResponseHeaders(200, content.length);
+            }
+            OutputStream out = exchange.getResponseBody();
+            if(request <= 2) {
+                out.write(content, start, 10*1024);
+                out.flush();
+                exchange.close();
+                return;
+            }
+            out.write(content, start, content.length - start);
+            out.close();
+            exchange.close();
+        });
+        //Sends the beginning of the body, then stalls until the end of the test
+        server.createContext("/stall", exchange -> {
+            exchange.sendResponseHeaders(200, content.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(content, 0, 10*1024);
+            out.flush();
+            try {
+                stallLatch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {}
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        stallLatch.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void httpTest() throws IOException {
+        DownloadClient client = new DownloadClient(Duration.ofSeconds(5), Duration.ofSeconds(5));
+        URL url = new URL("http://localhost:"+server.getAddress().getPort()+"/file");
+        for(int i=0; i<3; i++) {
+            try (DownloadClient.Response response = client.open(url, Collections.singletonMap("X-Test", "v"+i))) {
+                assertEquals(200, response.getStatusCode());
+                assertEquals("v"+i, response.getHeader("x-test"));
+                assertEquals(-1, response.getContentLength());
+                assertArrayEquals(content, response.getInputStream().readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void resumeTest() throws IOException {
+        DownloadClient client = new DownloadClient(Duration.ofSeconds(5), Duration.ofSeconds(5), 4,
+                Duration.ofMillis(10), Duration.ofMillis(50));
+        URL url = new URL("http://localhost:"+server.getAddress().getPort()+"/flaky");
+        File root = new File("target", UUID.randomUUID().toString());
+        File target = new File(root, "flaky.zip");
+        assertTrue(client.downloadTo(url, target, DownloadCache.sha256(writeContent(root))));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(3, flakyRequests.get());
+        assertEquals(2, ranges.size());
+        assertEquals("bytes=10240-", ranges.get(0));
+        assertEquals("bytes=20480-", ranges.get(1));
+        assertFalse(new File(root, "flaky.zip.part").exists());
+    }
+
+    @Test
+    void gzipTest() throws IOException {
+        DownloadClient client = new DownloadClient(Duration.ofSeconds(5), Duration.ofSeconds(5));
+        URL url = new URL("http://localhost:"+server.getAddress().getPort()+"/file");
+        File root = new File("target", UUID.randomUUID().toString());
+        File target = new File(root, "file.zip");
+        assertTrue(client.downloadTo(url, target, DownloadCache.sha256(writeContent(root))));
+        assertArrayEquals(content, Files.readAllBytes(target.toPath()));
+        assertEquals(Collections.singletonList("gzip"), encodings);
+    }
+
+    @Test
+    void readTimeoutTest() throws IOException {
+        DownloadClient client = new DownloadClient(Duration.ofSeconds(5), Duration.ofSeconds(5),
+                Duration.ofMillis(300), 2, Duration.ofMillis(10), Duration.ofMillis(50));
+        URL url = new URL("http://localhost:"+server.getAddress().getPort()+"/stall");
+        File root = new File("target", UUID.randomUUID().toString());
+        File target = new File(root, "stall.zip");
+        long start = System.nanoTime();
+        assertThrows(IOException.class, () -> client.downloadTo(url, target, null));
+        //The stalled transfers are cancelled long before the server ends them
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        assertFalse(target.exists());
+        assertFalse(new File(root, "stall.zip.part").exists());
+    }
+
+    @Test
+    void badChecksumTest() throws IOException {
+        DownloadClient client = new DownloadClient(Duration.ofSeconds(5), Duration.ofSeconds(5), 4,
+                Duration.ofMillis(10), Duration.ofMillis(50));
+        URL url = new URL("http://localhost:"+server.getAddress().getPort()+"/file");
+        File root = new File("target", UUID.randomUUID().toString());
+        File target = new File(root, "file.zip");
+        assertThrows(IOException.class, () -> client.downloadTo(url, target, "00"));
+        assertFalse(target.exists());
+        assertFalse(new File(root, "file.zip.part").exists());
+    }
+
+    @Test
+    void tooManyFailuresTest() throws IOException {
+        DownloadClient client = new DownloadClient(Duration.ofSeconds(5), Duration.ofSeconds(5), 2,
+                Duration.ofMillis(10), Duration.ofMillis(50));
+        URL url = new URL("http://localhost:"+server.getAddress().getPort()+"/flaky");
+        File root = new File("target", UUID.randomUUID().toString());
+        File target = new File(root, "flaky.zip");
+        assertThrows(IOException.class, () -> client.downloadTo(url, target, null));
+        assertFalse(target.exists());
+        assertFalse(new File(root, "flaky.zip.part").exists());
+    }
+
+    @Test
+    void unknownHostTest() throws IOException {
+        DownloadClient client = new DownloadClient(Duration.ofSeconds(5), Duration.ofSeconds(5), 5,
+                Duration.ofSeconds(10), Duration.ofSeconds(10));
+        URL url = new URL("http://unknown.host.invalid/file");
+        File root = new File("target", UUID.randomUUID().toString());
+        long start = System.nanoTime();
+        assertThrows(IOException.class, () -> client.downloadTo(url, new File(root, "file"), null));
+        //No retry, so no backoff delay
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos());
+    }
+
+    /**
+     * Write the test content into a file of the given folder.
+     */
+    private File writeContent(File folder) throws IOException {
+        assertTrue(folder.mkdirs());
+        File file = new File(folder, "content");
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    @Test
+    void fileTest() throws IOException {
+        File root = new File("target", UUID.randomUUID().toString());
+        assertTrue(root.mkdirs());
+        File file = new File(root, "file");
+        Files.write(file.toPath(), content);
+        try (DownloadClient.Response response = DownloadClient.getDefault().open(file.toURI().toURL())) {
+            assertEquals(DownloadClient.STATUS_OK, response.getStatusCode());
+            assertEquals(content.length, response.getContentLength());
+            assertNull(response.getHeader("ETag"));
+            assertArrayEquals(content, response.getInputStream().readAllBytes());
+        }
+    }
+}
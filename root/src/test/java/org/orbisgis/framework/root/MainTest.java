@@ -45,11 +45,13 @@ import org.junit.jupiter.api.Test;
 import org.osgi.framework.launch.FrameworkFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.net.URISyntaxException;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -83,7 +85,7 @@ class MainTest {
         result = method.invoke(main, options);
         assertTrue(result instanceof Options);
         options = (Options)result;
-        assertEquals(7, options.getOptions().size());
+        assertEquals(11, options.getOptions().size());
         assertTrue(options.hasLongOption("help"));
         assertTrue(options.hasLongOption("archetype"));
         assertTrue(options.hasLongOption("debug"));
@@ -91,6 +93,10 @@ class MainTest {
         assertTrue(options.hasLongOption("noUI"));
         assertTrue(options.hasLongOption("workspace"));
         assertTrue(options.hasLongOption("configProperties"));
+        assertTrue(options.hasLongOption("startupReport"));
+        assertTrue(options.hasLongOption("batch"));
+        assertTrue(options.hasLongOption("inputs"));
+        assertTrue(options.hasLongOption("parallelism"));
     }
 
     @Test
@@ -164,6 +170,46 @@ class MainTest {
         assertTrue(bool);
     }
 
+    @Test
+    void testParseArgumentsBatch()
+            throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, NoSuchFieldException,
+            IOException {
+        File folder = new File("target", UUID.randomUUID().toString());
+        assertTrue(folder.mkdirs());
+        File script = new File(folder, "script.groovy");
+        assertTrue(script.createNewFile());
+
+        Main main = new Main();
+        Field scriptField = main.getClass().getDeclaredField("BATCH_SCRIPT");
+        scriptField.setAccessible(true);
+        Field inputsField = main.getClass().getDeclaredField("BATCH_INPUTS");
+        inputsField.setAccessible(true);
+        Field parallelismField = main.getClass().getDeclaredField("BATCH_PARALLELISM");
+        parallelismField.setAccessible(true);
+        Field noUIField = main.getClass().getDeclaredField("NO_UI_MODE");
+        noUIField.setAccessible(true);
+        Method method = main.getClass().getDeclaredMethod("parseArguments", String[].class);
+        method.setAccessible(true);
+
+        method.invoke(main, new Object[]{new String[]{"--batch=" + script.getPath(), "--inputs=" + folder.getPath(),
+                "--parallelism=3"}});
+        assertEquals(script, scriptField.get(main));
+        assertEquals(folder, inputsField.get(main));
+        assertEquals(3, parallelismField.getInt(main));
+        assertTrue(noUIField.getBoolean(main));
+
+        //Without --parallelism, the previous value is not kept
+        method.invoke(main, new Object[]{new String[]{"--batch=" + script.getPath(), "--inputs=" + folder.getPath()}});
+        assertEquals(Runtime.getRuntime().availableProcessors(), parallelismField.getInt(main));
+
+        method.invoke(main, new Object[]{new String[]{"--batch=" + script.getPath(), "--inputs=" + folder.getPath(),
+                "--parallelism=3"}});
+        method.invoke(main, new Object[]{new String[]{}});
+        assertNull(scriptField.get(main));
+        assertNull(inputsField.get(main));
+        assertEquals(Runtime.getRuntime().availableProcessors(), parallelismField.getInt(main));
+    }
+
     @Test
     void testParseArgumentsWorkspace()
             throws NoSuchMethodException, InvocationTargetException, IllegalAccessException, NoSuchFieldException {
@@ -0,0 +1,118 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Framework is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Framework is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Framework is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Framework. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.apache.felix.framework.Logger;
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.Constants;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.framework.root.ManifestIndex} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class ManifestIndexTest {
+
+    private Logger logger = new Logger();
+
+    /**
+     * Create a bundle jar with only a manifest.
+     */
+    private static void createBundleFile(File file, String symbolicName, String version) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue(Constants.BUNDLE_SYMBOLICNAME, symbolicName + ";singleton:=true");
+        attributes.putValue(Constants.BUNDLE_VERSION, version);
+        try(JarOutputStream out = new JarOutputStream(new FileOutputStream(file), manifest)) {
+            out.flush();
+        }
+    }
+
+    @Test
+    void indexTest() throws IOException {
+        File root = new File("target", UUID.randomUUID().toString());
+        assertTrue(root.mkdirs());
+        File indexFile = new File(root, ManifestIndex.INDEX_FILE_NAME);
+        File jar = new File(root, "test.jar");
+        createBundleFile(jar, "test.bundle", "1.0.0");
+
+        ManifestIndex index = new ManifestIndex(indexFile, logger);
+        ManifestIndex.Entry entry = index.getEntry(jar);
+        assertNotNull(entry);
+        assertEquals("test.bundle", entry.getSymbolicName());
+        assertEquals("1.0.0", entry.getVersion());
+        assertNull(entry.getFragmentHost());
+        index.save();
+        assertTrue(indexFile.exists());
+
+        //The entry is read from the saved index while the file is unchanged
+        long lastModified = jar.lastModified();
+        long size = jar.length();
+        Files.write(jar.toPath(), new byte[(int)size]);
+        assertTrue(jar.setLastModified(lastModified));
+        entry = new ManifestIndex(indexFile, logger).getEntry(jar);
+        assertNotNull(entry);
+        assertEquals("test.bundle", entry.getSymbolicName());
+
+        //The manifest is read again once the file has changed
+        createBundleFile(jar, "test.bundle", "2.0.0");
+        assertTrue(jar.setLastModified(lastModified + 10000));
+        index = new ManifestIndex(indexFile, logger);
+        entry = index.getEntry(jar);
+        assertNotNull(entry);
+        assertEquals("2.0.0", entry.getVersion());
+
+        //The entries of the removed files are dropped
+        index.retainAll(Collections.emptyList());
+        index.save();
+        assertFalse(new String(Files.readAllBytes(indexFile.toPath())).contains("test.jar"));
+    }
+}
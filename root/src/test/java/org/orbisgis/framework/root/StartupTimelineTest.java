@@ -0,0 +1,86 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Framework is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Framework is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Framework is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Framework. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.framework.root.StartupTimeline} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class StartupTimelineTest {
+
+    @Test
+    void timelineTest() throws InterruptedException, IOException {
+        StartupTimeline.reset();
+        int outer = StartupTimeline.start("outer");
+        int first = StartupTimeline.start("first", "a.jar");
+        Thread.sleep(5);
+        StartupTimeline.end(first);
+        int second = StartupTimeline.start("second", "b.jar");
+        Thread.sleep(20);
+        StartupTimeline.end(second);
+        StartupTimeline.end(outer);
+        int unfinished = StartupTimeline.start("unfinished");
+        assertNotEquals(StartupTimeline.NOT_RECORDED, unfinished);
+
+        assertEquals(3, StartupTimeline.getPhases().size());
+
+        String summary = StartupTimeline.getCriticalPathSummary();
+        assertTrue(summary.contains("first [a.jar]"));
+        assertTrue(summary.contains("second [b.jar]"));
+        assertFalse(summary.contains("outer"));
+        assertFalse(summary.contains("unfinished"));
+        assertTrue(summary.indexOf("second") < summary.indexOf("first"));
+
+        File file = new File("target", UUID.randomUUID().toString()+".json");
+        StartupTimeline.write(file);
+        String json = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"name\" : \"outer\""));
+        assertTrue(json.contains("\"detail\" : \"b.jar\""));
+    }
+}
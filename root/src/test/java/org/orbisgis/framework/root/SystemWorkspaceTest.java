@@ -41,7 +41,9 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -86,4 +88,26 @@ public class SystemWorkspaceTest {
         SystemWorkspace systemWorkspace = new SystemWorkspace(path, 0, 0, logger);
         systemWorkspace.loadWorkspace(true);
     }
+
+    @Test
+    void clearTest() throws Exception {
+        File root = new File("target", UUID.randomUUID().toString());
+        File file = new File(root, "workspace");
+        SystemWorkspace systemWorkspace = new SystemWorkspace(file.getAbsolutePath(), 0, 0, logger);
+        assertTrue(systemWorkspace.loadWorkspace(false));
+        for(int i=0; i<20; i++) {
+            File folder = new File(systemWorkspace.getCacheFolderPath(), "bundle" + i + "/version0.0");
+            assertTrue(folder.mkdirs());
+            assertTrue(new File(folder, "bundle.jar").createNewFile());
+        }
+        //Tombstone left by a previous start
+        assertTrue(new File(root, "workspace.deleted-old/cache").mkdirs());
+
+        assertTrue(systemWorkspace.loadWorkspace(true));
+        assertEquals(0, new File(systemWorkspace.getCacheFolderPath()).list().length);
+        assertTrue(new File(systemWorkspace.getBundleFolderPath()).exists());
+
+        assertTrue(systemWorkspace.getDeletionFuture().get(10, TimeUnit.SECONDS));
+        assertArrayEquals(new String[]{"workspace"}, root.list());
+    }
 }
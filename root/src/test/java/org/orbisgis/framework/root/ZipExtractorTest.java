@@ -0,0 +1,108 @@
+/*
+ * Framework is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Framework is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Framework is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Framework is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Framework. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.framework.root;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.framework.root.ZipExtractor} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class ZipExtractorTest {
+
+    private static byte[] getContent(int i) {
+        byte[] content = new byte[1000 * i];
+        for(int j=0; j<content.length; j++){
+            content[j] = (byte)(i + j);
+        }
+        return content;
+    }
+
+    @Test
+    void extractTest() throws IOException {
+        File root = new File("target", UUID.randomUUID().toString());
+        assertTrue(root.mkdirs());
+        File zipFile = new File(root, "test.zip");
+        try(ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            out.putNextEntry(new ZipEntry("sdk/"));
+            out.putNextEntry(new ZipEntry("sdk/lib/"));
+            for(int i=0; i<50; i++) {
+                out.putNextEntry(new ZipEntry("sdk/lib/file" + i));
+                out.write(getContent(i));
+            }
+            //File without directory entry
+            out.putNextEntry(new ZipEntry("sdk/legal/a/LICENSE"));
+            out.write(getContent(3));
+        }
+        File destination = new File(root, "destination");
+        File rootDirectory = ZipExtractor.extract(zipFile, destination, 4);
+        assertEquals(new File(destination, "sdk").getAbsoluteFile(), rootDirectory);
+        for(int i=0; i<50; i++) {
+            assertArrayEquals(getContent(i), Files.readAllBytes(new File(destination, "sdk/lib/file"+i).toPath()));
+        }
+        assertArrayEquals(getContent(3), Files.readAllBytes(new File(destination, "sdk/legal/a/LICENSE").toPath()));
+    }
+
+    @Test
+    void zipSlipTest() throws IOException {
+        File root = new File("target", UUID.randomUUID().toString());
+        assertTrue(root.mkdirs());
+        File zipFile = new File(root, "test.zip");
+        try(ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            out.putNextEntry(new ZipEntry("file"));
+            out.write(getContent(1));
+            out.putNextEntry(new ZipEntry("../evil"));
+            out.write(getContent(1));
+        }
+        File destination = new File(root, "destination");
+        assertThrows(IOException.class, () -> ZipExtractor.extract(zipFile, destination, 2));
+        assertFalse(new File(root, "evil").exists());
+        assertFalse(new File(destination, "file").exists());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scriptmanagerapi;
+
+import javax.script.ScriptException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service executing scripts with the JSR-223 script engines (Groovy, JavaScript ...).
+ *
+ * The ISyntaxObject registered into the ISyntaxProviderManager are available in the scripts as predefined variables.
+ * The engines are reused and the compiled scripts are cached, so executing again the same script does not parse and
+ * compile it again.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public interface IScriptManager {
+
+    /**
+     * Return the names of the available languages, like 'groovy' or 'js'.
+     *
+     * @return The names of the available languages.
+     */
+    Set<String> getLanguages();
+
+    /**
+     * Execute the given script.
+     *
+     * @param language Name of the language of the script.
+     * @param script Source of the script.
+     *
+     * @return The value returned by the script.
+     *
+     * @throws ScriptException Exception thrown if the language is not available or if the script fails.
+     */
+    Object eval(String language, String script) throws ScriptException;
+
+    /**
+     * Execute the given script with the given variables, in addition to the predefined ones. The variables are only
+     * visible by this execution.
+     *
+     * @param language Name of the language of the script.
+     * @param script Source of the script.
+     * @param variables Variables of the script with their name as key, can be null.
+     *
+     * @return The value returned by the script.
+     *
+     * @throws ScriptException Exception thrown if the language is not available or if the script fails.
+     */
+    Object eval(String language, String script, Map<String, Object> variables) throws ScriptException;
+}
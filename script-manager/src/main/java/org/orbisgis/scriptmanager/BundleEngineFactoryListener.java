@@ -0,0 +1,196 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scriptmanager;
+
+import org.osgi.framework.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.ScriptEngineFactory;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listener adding to the {@link ScriptManager} the {@link javax.script.ScriptEngineFactory} declared by the resolved
+ * bundles in their {@link #SERVICE_FILE}, like the JSR-223 engine bundle of Groovy.
+ *
+ * The {@link javax.script.ScriptEngineManager} only sees the factories of its own class loader, so the script engines
+ * of the other bundles are loaded from their own class loader and removed when they are unresolved.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class BundleEngineFactoryListener implements SynchronousBundleListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BundleEngineFactoryListener.class);
+    /** Service file declaring the ScriptEngineFactory of a bundle */
+    static final String SERVICE_FILE = "META-INF/services/" + ScriptEngineFactory.class.getName();
+    /** States of the bundles whose classes can be loaded */
+    private static final int RESOLVED_STATES = Bundle.RESOLVED | Bundle.STARTING | Bundle.ACTIVE | Bundle.STOPPING;
+
+    /** Context used to listen to the bundle events */
+    private final BundleContext bundleContext;
+    /** ScriptManager using the factories */
+    private final ScriptManager scriptManager;
+    /** Factories added with the bundle id as key */
+    private final Map<Long, List<ScriptEngineFactory>> factoryMap = new ConcurrentHashMap<>();
+
+    /**
+     * Main constructor.
+     *
+     * @param bundleContext Context used to listen to the bundle events.
+     * @param scriptManager ScriptManager using the factories.
+     */
+    BundleEngineFactoryListener(BundleContext bundleContext, ScriptManager scriptManager) {
+        this.bundleContext = bundleContext;
+        this.scriptManager = scriptManager;
+    }
+
+    /**
+     * Start listening to the bundle events and add the factories of the bundles already resolved.
+     */
+    void open() {
+        bundleContext.addBundleListener(this);
+        for(Bundle bundle : bundleContext.getBundles()) {
+            if((bundle.getState() & RESOLVED_STATES) != 0) {
+                addFactories(bundle);
+            }
+        }
+    }
+
+    /**
+     * Stop listening to the bundle events and remove all the factories.
+     */
+    void close() {
+        bundleContext.removeBundleListener(this);
+        for(Long bundleId : new ArrayList<>(factoryMap.keySet())) {
+            removeFactories(bundleId);
+        }
+    }
+
+    @Override
+    public void bundleChanged(BundleEvent event) {
+        switch(event.getType()) {
+            case BundleEvent.RESOLVED:
+                addFactories(event.getBundle());
+                break;
+            case BundleEvent.UNRESOLVED:
+            case BundleEvent.UNINSTALLED:
+                removeFactories(event.getBundle().getBundleId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Add the factories declared by the given bundle, if not already done.
+     *
+     * @param bundle Bundle declaring the factories.
+     */
+    private void addFactories(Bundle bundle) {
+        //The factories of the system bundle come from the ScriptEngineManager
+        if(bundle.getBundleId() == 0) {
+            return;
+        }
+        URL url = bundle.getEntry(SERVICE_FILE);
+        if(url == null) {
+            return;
+        }
+        factoryMap.computeIfAbsent(bundle.getBundleId(), id -> {
+            List<ScriptEngineFactory> factoryList = new ArrayList<>();
+            for(String className : readClassNames(url)) {
+                try {
+                    Object factory = bundle.loadClass(className).getConstructor().newInstance();
+                    if(factory instanceof ScriptEngineFactory) {
+                        scriptManager.addScriptEngineFactory((ScriptEngineFactory) factory);
+                        factoryList.add((ScriptEngineFactory) factory);
+                    }
+                    else {
+                        LOGGER.warn("The class '" + className + "' of the bundle '" + bundle.getSymbolicName() +
+                                "' is not a ScriptEngineFactory");
+                    }
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    LOGGER.warn("Unable to load the script engine factory '" + className + "' of the bundle '" +
+                            bundle.getSymbolicName() + "'\n" + e.getLocalizedMessage());
+                }
+            }
+            return factoryList;
+        });
+    }
+
+    /**
+     * Remove the factories added for the bundle with the given id.
+     *
+     * @param bundleId Id of the bundle.
+     */
+    private void removeFactories(long bundleId) {
+        List<ScriptEngineFactory> factoryList = factoryMap.remove(bundleId);
+        if(factoryList != null) {
+            factoryList.forEach(scriptManager::removeScriptEngineFactory);
+        }
+    }
+
+    /**
+     * Read the class names of the given service file, skipping the comments and the blank lines.
+     *
+     * @param url Url of the service file.
+     *
+     * @return The class names.
+     */
+    private static List<String> readClassNames(URL url) {
+        List<String> classNameList = new ArrayList<>();
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while((line = reader.readLine()) != null) {
+                int index = line.indexOf('#');
+                String className = (index < 0 ? line : line.substring(0, index)).trim();
+                if(!className.isEmpty()) {
+                    classNameList.add(className);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read the service file '" + url + "'\n" + e.getLocalizedMessage());
+        }
+        return classNameList;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scriptmanager;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of the warm {@link javax.script.ScriptEngine} of one {@link javax.script.ScriptEngineFactory}.
+ *
+ * An engine is borrowed by one execution at a time. If the factory declares its engines as thread safe, the compiled
+ * scripts are shared by all the engines, otherwise each engine has its own compiled scripts.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class EnginePool {
+
+    /** Maximum number of compiled scripts cached */
+    private static final int CACHE_CAPACITY = 256;
+
+    private final ScriptEngineFactory factory;
+    /** Idle engines */
+    private final BlockingQueue<PooledEngine> idleQueue;
+    /** Compiled scripts shared by the engines, null if the engines are not thread safe */
+    private final ScriptCache sharedCache;
+
+    /**
+     * Main constructor.
+     *
+     * @param factory Factory of the engines.
+     * @param maxIdle Maximum number of idle engines kept.
+     */
+    EnginePool(ScriptEngineFactory factory, int maxIdle) {
+        this.factory = factory;
+        this.idleQueue = new ArrayBlockingQueue<>(maxIdle);
+        this.sharedCache = factory.getParameter("THREADING") == null ? null : new ScriptCache(CACHE_CAPACITY);
+    }
+
+    /**
+     * Return the factory of the engines.
+     *
+     * @return The factory of the engines.
+     */
+    ScriptEngineFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Borrow an idle engine, or create a new one if there is none.
+     *
+     * @return The borrowed engine, to give back with {@link #release(PooledEngine)}.
+     */
+    PooledEngine borrow() {
+        PooledEngine pooledEngine = idleQueue.poll();
+        if(pooledEngine == null) {
+            pooledEngine = new PooledEngine(factory.getScriptEngine(),
+                    sharedCache == null ? new ScriptCache(CACHE_CAPACITY) : sharedCache);
+        }
+        return pooledEngine;
+    }
+
+    /**
+     * Give back a borrowed engine. It is dropped if enough engines are idle.
+     *
+     * @param pooledEngine Borrowed engine.
+     */
+    void release(PooledEngine pooledEngine) {
+        idleQueue.offer(pooledEngine);
+    }
+
+    /**
+     * Drop all the idle engines.
+     */
+    void clear() {
+        idleQueue.clear();
+    }
+
+    /**
+     * Engine of the pool with its compiled scripts.
+     */
+    static class PooledEngine {
+        private final ScriptEngine engine;
+        private final ScriptCache cache;
+
+        private PooledEngine(ScriptEngine engine, ScriptCache cache) {
+            this.engine = engine;
+            this.cache = cache;
+        }
+
+        ScriptEngine getEngine() {
+            return engine;
+        }
+
+        ScriptCache getCache() {
+            return cache;
+        }
+    }
+}
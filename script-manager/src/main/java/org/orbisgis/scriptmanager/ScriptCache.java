@@ -0,0 +1,120 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scriptmanager;
+
+import javax.script.CompiledScript;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the {@link javax.script.CompiledScript} with the SHA-256 hash of their source as key.
+ *
+ * The least recently used scripts are dropped once the capacity is reached, and the compiled scripts are softly
+ * referenced so the garbage collector can reclaim them under memory pressure.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class ScriptCache {
+
+    /** Compiled scripts with the hash of their source as key, in access order */
+    private final Map<String, SoftReference<CompiledScript>> scriptMap;
+
+    /**
+     * Main constructor.
+     *
+     * @param capacity Maximum number of cached scripts.
+     */
+    ScriptCache(int capacity) {
+        scriptMap = new LinkedHashMap<String, SoftReference<CompiledScript>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SoftReference<CompiledScript>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Return the compiled script with the given source hash.
+     *
+     * @param hash Hash of the source of the script, returned by {@link #hash(String)}.
+     *
+     * @return The compiled script or null if it is not cached.
+     */
+    synchronized CompiledScript get(String hash) {
+        SoftReference<CompiledScript> reference = scriptMap.get(hash);
+        CompiledScript compiledScript = reference == null ? null : reference.get();
+        if(reference != null && compiledScript == null) {
+            scriptMap.remove(hash);
+        }
+        return compiledScript;
+    }
+
+    /**
+     * Cache the given compiled script.
+     *
+     * @param hash Hash of the source of the script, returned by {@link #hash(String)}.
+     * @param compiledScript Compiled script.
+     */
+    synchronized void put(String hash, CompiledScript compiledScript) {
+        scriptMap.put(hash, new SoftReference<>(compiledScript));
+    }
+
+    /**
+     * Return the SHA-256 hash of the given script source.
+     *
+     * @param script Source of the script.
+     *
+     * @return The hexadecimal hash.
+     */
+    static String hash(String script) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for(byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scriptmanager;
+
+import org.orbisgis.scriptmanagerapi.IScriptManager;
+import org.orbisgis.syntaxmanagerapi.ISyntaxProviderManager;
+import org.orbisgis.syntaxmanagerapi.SyntaxSnapshot;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementation of IScriptManager.
+ *
+ * The engines come from the {@link javax.script.ScriptEngineFactory} of the JDK, from the ones declared by the bundles
+ * (see {@link BundleEngineFactoryListener}) and from the ones registered as OSGi services. For each factory, the engines are kept warm in an {@link EnginePool} and the compiled scripts are cached
+ * in a {@link ScriptCache} with the hash of their source as key. The ISyntaxObject of the ISyntaxProviderManager are
+ * exposed to each execution through its own global scope {@link SyntaxBindings}, while the variables of an execution
+ * are put in its own engine scope, so nothing leaks from an execution to the next one.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+@Component(immediate = true, service = {IScriptManager.class})
+public class ScriptManager implements IScriptManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScriptManager.class);
+    /** Maximum number of idle engines kept for each language */
+    private static final int MAX_IDLE_ENGINES = 4;
+    /** Snapshot used while no ISyntaxProviderManager is bound */
+    private static final SyntaxSnapshot EMPTY_SNAPSHOT = new SyntaxSnapshot(0, Collections.emptyList());
+
+    /** Engine pools with the language names as key */
+    private final Map<String, EnginePool> poolMap = new ConcurrentHashMap<>();
+    /** Manager of the ISyntaxObject exposed to the scripts */
+    private volatile ISyntaxProviderManager syntaxProviderManager;
+    /** Listener adding the factories declared by the bundles */
+    private BundleEngineFactoryListener bundleListener;
+
+    @Activate
+    public void activate(BundleContext bundleContext){
+        for(ScriptEngineFactory factory : new ScriptEngineManager(ScriptManager.class.getClassLoader())
+                .getEngineFactories()) {
+            addScriptEngineFactory(factory);
+        }
+        bundleListener = new BundleEngineFactoryListener(bundleContext, this);
+        bundleListener.open();
+    }
+
+    @Deactivate
+    public void deactivate(){
+        if(bundleListener != null) {
+            bundleListener.close();
+            bundleListener = null;
+        }
+        poolMap.values().forEach(EnginePool::clear);
+        poolMap.clear();
+    }
+
+    /**
+     * Set the ISyntaxProviderManager whose ISyntaxObject are exposed to the scripts.
+     *
+     * @param syntaxProviderManager ISyntaxProviderManager to use.
+     */
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    public void setSyntaxProviderManager(ISyntaxProviderManager syntaxProviderManager){
+        this.syntaxProviderManager = syntaxProviderManager;
+    }
+
+    /**
+     * Unset the ISyntaxProviderManager.
+     *
+     * @param syntaxProviderManager ISyntaxProviderManager unset.
+     */
+    public void unsetSyntaxProviderManager(ISyntaxProviderManager syntaxProviderManager){
+        if(this.syntaxProviderManager == syntaxProviderManager) {
+            this.syntaxProviderManager = null;
+        }
+    }
+
+    /**
+     * Add a ScriptEngineFactory. Its engines are used for all its language names which are not already available.
+     *
+     * @param factory ScriptEngineFactory to add.
+     */
+    @Reference(cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
+    public void addScriptEngineFactory(ScriptEngineFactory factory){
+        EnginePool pool = new EnginePool(factory, MAX_IDLE_ENGINES);
+        for(String name : factory.getNames()) {
+            poolMap.putIfAbsent(name, pool);
+        }
+        LOGGER.debug("Script engine '" + factory.getEngineName() + "' added for " + factory.getNames());
+    }
+
+    /**
+     * Remove a ScriptEngineFactory.
+     *
+     * @param factory ScriptEngineFactory to remove.
+     */
+    public void removeScriptEngineFactory(ScriptEngineFactory factory){
+        poolMap.values().removeIf(pool -> pool.getFactory() == factory);
+        LOGGER.debug("Script engine '" + factory.getEngineName() + "' removed");
+    }
+
+    /**
+     * Return the current snapshot of the ISyntaxProviderManager.
+     *
+     * @return The current snapshot, empty if no ISyntaxProviderManager is bound.
+     */
+    private SyntaxSnapshot getSnapshot(){
+        ISyntaxProviderManager manager = syntaxProviderManager;
+        return manager == null ? EMPTY_SNAPSHOT : manager.getSnapshot();
+    }
+
+    @Override
+    public Set<String> getLanguages(){
+        return Collections.unmodifiableSet(new TreeSet<>(poolMap.keySet()));
+    }
+
+    @Override
+    public Object eval(String language, String script) throws ScriptException {
+        return eval(language, script, null);
+    }
+
+    @Override
+    public Object eval(String language, String script, Map<String, Object> variables) throws ScriptException {
+        EnginePool pool = poolMap.get(language);
+        if(pool == null) {
+            throw new ScriptException("No script engine available for the language '" + language + "'");
+        }
+        EnginePool.PooledEngine pooledEngine = pool.borrow();
+        try {
+            ScriptEngine engine = pooledEngine.getEngine();
+            ScriptContext context = new SimpleScriptContext();
+            Bindings bindings = engine.createBindings();
+            if(variables != null) {
+                bindings.putAll(variables);
+            }
+            context.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+            context.setBindings(new SyntaxBindings(getSnapshot()), ScriptContext.GLOBAL_SCOPE);
+            if(!(engine instanceof Compilable)) {
+                return engine.eval(script, context);
+            }
+            String hash = ScriptCache.hash(script);
+            CompiledScript compiledScript = pooledEngine.getCache().get(hash);
+            if(compiledScript == null) {
+                compiledScript = ((Compilable) engine).compile(script);
+                pooledEngine.getCache().put(hash, compiledScript);
+            }
+            return compiledScript.eval(context);
+        } finally {
+            pool.release(pooledEngine);
+        }
+    }
+}
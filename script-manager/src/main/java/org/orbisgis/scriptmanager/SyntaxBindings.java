@@ -0,0 +1,154 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scriptmanager;
+
+import org.orbisgis.syntaxmanagerapi.ISyntaxObject;
+import org.orbisgis.syntaxmanagerapi.SyntaxSnapshot;
+
+import javax.script.Bindings;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * {@link javax.script.Bindings} of the ISyntaxObject of a {@link SyntaxSnapshot}, used as global scope of one script
+ * execution.
+ *
+ * The bindings are a cheap view over the snapshot, created for each execution, so they are never rebuilt when the
+ * ISyntaxObject change. The value of an ISyntaxObject is only read when a script uses it, even when the bindings are
+ * iterated or copied. The values put by the script are kept in an overlay which hides the ISyntaxObject with the same
+ * name and which is dropped with the bindings, so nothing leaks to the other executions.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+class SyntaxBindings extends AbstractMap<String, Object> implements Bindings {
+
+    /** Snapshot of the ISyntaxObject of the execution */
+    private final SyntaxSnapshot snapshot;
+    /** Values put by the script */
+    private final Map<String, Object> overlayMap = new HashMap<>();
+
+    /**
+     * Main constructor.
+     *
+     * @param snapshot Snapshot of the ISyntaxObject exposed to the script.
+     */
+    SyntaxBindings(SyntaxSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if(overlayMap.containsKey(key)) {
+            return overlayMap.get(key);
+        }
+        ISyntaxObject syntaxObject = key instanceof String ? snapshot.getSyntaxObject((String) key) : null;
+        return syntaxObject == null ? null : syntaxObject.getValue();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return overlayMap.containsKey(key) ||
+                (key instanceof String && snapshot.getSyntaxObject((String) key) != null);
+    }
+
+    @Override
+    public Object put(String name, Object value) {
+        Object previous = get(name);
+        overlayMap.put(name, value);
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return overlayMap.remove(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return Stream.concat(
+                        snapshot.getSyntaxObjectMap().entrySet().stream()
+                                .filter(entry -> !overlayMap.containsKey(entry.getKey()))
+                                .map(entry -> (Entry<String, Object>) new SyntaxEntry(entry.getKey(), entry.getValue())),
+                        overlayMap.entrySet().stream())
+                        .iterator();
+            }
+
+            @Override
+            public int size() {
+                int size = overlayMap.size();
+                for(String name : snapshot.getSyntaxObjectMap().keySet()) {
+                    if(!overlayMap.containsKey(name)) {
+                        size++;
+                    }
+                }
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Read only entry of an ISyntaxObject, whose value is read on demand.
+     */
+    private static final class SyntaxEntry implements Entry<String, Object> {
+        private final String name;
+        private final ISyntaxObject syntaxObject;
+
+        private SyntaxEntry(String name, ISyntaxObject syntaxObject) {
+            this.name = name;
+            this.syntaxObject = syntaxObject;
+        }
+
+        @Override
+        public String getKey() {
+            return name;
+        }
+
+        @Override
+        public Object getValue() {
+            return syntaxObject.getValue();
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException("The ISyntaxObject entries are read only");
+        }
+    }
+}
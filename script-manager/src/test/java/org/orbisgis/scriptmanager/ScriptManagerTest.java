@@ -0,0 +1,359 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.scriptmanager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.orbisgis.syntaxmanagerapi.*;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.BundleListener;
+
+import javax.script.*;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test class for the {@link org.orbisgis.scriptmanager.ScriptManager} class.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public class ScriptManagerTest {
+
+    private static final String LANGUAGE = "stub";
+
+    private ScriptManager scriptManager;
+    private StubScriptEngineFactory factory;
+    private SyntaxSnapshot snapshot;
+    private final List<Bundle> bundleList = new ArrayList<>();
+    private final List<BundleListener> bundleListenerList = new ArrayList<>();
+
+    /**
+     * Create a mock of the given interface. The answers give the result of each call from the method name and its
+     * arguments, a null answer of a primitive method is replaced by its default value.
+     */
+    private static <T> T mock(Class<T> type, BiFunction<String, Object[], Object> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch(method.getName()) {
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return type.getSimpleName();
+            }
+            Object value = answers.apply(method.getName(), args);
+            if(value == null && method.getReturnType() == boolean.class) {
+                return false;
+            }
+            if(value == null && method.getReturnType() == int.class) {
+                return 0;
+            }
+            if(value == null && method.getReturnType() == long.class) {
+                return 0L;
+            }
+            return value;
+        }));
+    }
+
+    @BeforeEach
+    void setUp() {
+        BundleContext bundleContext = mock(BundleContext.class, (name, args) -> {
+            switch(name) {
+                case "getBundles":
+                    return bundleList.toArray(new Bundle[0]);
+                case "addBundleListener":
+                    bundleListenerList.add((BundleListener) args[0]);
+                    break;
+                case "removeBundleListener":
+                    bundleListenerList.remove(args[0]);
+                    break;
+            }
+            return null;
+        });
+        scriptManager = new ScriptManager();
+        scriptManager.activate(bundleContext);
+        factory = new StubScriptEngineFactory();
+        scriptManager.addScriptEngineFactory(factory);
+        snapshot = new SyntaxSnapshot(1, Collections.emptyList());
+        scriptManager.setSyntaxProviderManager(new SnapshotSyntaxProviderManager());
+    }
+
+    @AfterEach
+    void tearDown() {
+        scriptManager.deactivate();
+    }
+
+    @Test
+    void evalTest() throws ScriptException {
+        assertTrue(scriptManager.getLanguages().contains(LANGUAGE));
+        Map<String, Object> variables = Collections.singletonMap("a", 1);
+        for(int i = 0; i < 10; i++) {
+            assertEquals(1, scriptManager.eval(LANGUAGE, "a", variables));
+        }
+        //A repeated script is only compiled once
+        assertEquals(1, factory.compileCount.get());
+        assertEquals(1, scriptManager.eval(LANGUAGE, "a ", variables));
+        assertEquals(2, factory.compileCount.get());
+        assertThrows(ScriptException.class, () -> scriptManager.eval("unknownLanguage", "a"));
+
+        scriptManager.removeScriptEngineFactory(factory);
+        assertFalse(scriptManager.getLanguages().contains(LANGUAGE));
+        assertThrows(ScriptException.class, () -> scriptManager.eval(LANGUAGE, "a"));
+    }
+
+    @Test
+    void evalVariablesTest() throws ScriptException {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("a", 2);
+        assertEquals(2, scriptManager.eval(LANGUAGE, "a", variables));
+        variables.put("a", 5);
+        assertEquals(5, scriptManager.eval(LANGUAGE, "a", variables));
+        //The variables of an execution are not visible from the next one
+        assertNull(scriptManager.eval(LANGUAGE, "a"));
+    }
+
+    @Test
+    void evalGlobalScopeTest() throws ScriptException {
+        LazySyntaxObject<String> syntaxObject = new LazySyntaxObject<>("text", String.class, () -> "value");
+        snapshot = new SyntaxSnapshot(2, Collections.singletonList(new SingleSyntaxProvider(syntaxObject)));
+        assertEquals("other", scriptManager.eval(LANGUAGE, "global:text=other\ntext"));
+        assertEquals("1", scriptManager.eval(LANGUAGE, "global:a=1\na"));
+        //The values written in the global scope are not visible from the next execution
+        assertNull(scriptManager.eval(LANGUAGE, "a"));
+        assertEquals("value", scriptManager.eval(LANGUAGE, "text"));
+    }
+
+    @Test
+    void evalSyntaxObjectTest() throws ScriptException {
+        LazySyntaxObject<String> syntaxObject = new LazySyntaxObject<>("text", String.class, () -> "value");
+        ISyntaxProvider provider = new SingleSyntaxProvider(syntaxObject);
+        snapshot = new SyntaxSnapshot(2, Collections.singletonList(provider));
+        //Listing the global scope does not instantiate the ISyntaxObject
+        assertEquals("text", scriptManager.eval(LANGUAGE, "global:keys"));
+        assertFalse(syntaxObject.isInstantiated());
+        assertEquals("value", scriptManager.eval(LANGUAGE, "text"));
+        assertTrue(syntaxObject.isInstantiated());
+
+        snapshot = new SyntaxSnapshot(3, Collections.emptyList());
+        assertNull(scriptManager.eval(LANGUAGE, "text"));
+    }
+
+    @Test
+    void syntaxBindingsTest() {
+        LazySyntaxObject<String> syntaxObject = new LazySyntaxObject<>("text", String.class, () -> "value");
+        SyntaxBindings bindings = new SyntaxBindings(
+                new SyntaxSnapshot(1, Collections.singletonList(new SingleSyntaxProvider(syntaxObject))));
+        assertEquals(1, bindings.size());
+        assertTrue(bindings.containsKey("text"));
+        Map.Entry<String, Object> entry = bindings.entrySet().iterator().next();
+        assertEquals("text", entry.getKey());
+        assertFalse(syntaxObject.isInstantiated());
+        assertEquals("value", entry.getValue());
+        assertTrue(syntaxObject.isInstantiated());
+
+        assertEquals("value", bindings.put("text", "other"));
+        bindings.put("a", 1);
+        assertEquals(2, bindings.size());
+        assertEquals("other", bindings.get("text"));
+        assertEquals(new HashMap<>(bindings), bindings);
+        assertEquals("other", bindings.remove("text"));
+        assertEquals("value", bindings.get("text"));
+    }
+
+    @Test
+    void bundleFactoryTest() throws ScriptException, IOException {
+        tearDown();
+        File serviceFile = File.createTempFile("factories", ".txt");
+        serviceFile.deleteOnExit();
+        Files.write(serviceFile.toPath(), Arrays.asList("# Script engines", "java.lang.String",
+                StubScriptEngineFactory.class.getName() + " # stub"));
+        Bundle bundle = mock(Bundle.class, (name, args) -> {
+            switch(name) {
+                case "getBundleId":
+                    return 3L;
+                case "getState":
+                    return Bundle.ACTIVE;
+                case "getEntry":
+                    try {
+                        return BundleEngineFactoryListener.SERVICE_FILE.equals(args[0]) ?
+                                serviceFile.toURI().toURL() : null;
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                case "loadClass":
+                    try {
+                        return Class.forName((String) args[0]);
+                    } catch (ClassNotFoundException e) {
+                        throw new IllegalStateException(e);
+                    }
+                default:
+                    return null;
+            }
+        });
+        bundleList.add(bundle);
+        //The factory declared by an already resolved bundle is added on activation
+        setUp();
+        scriptManager.removeScriptEngineFactory(factory);
+        assertTrue(scriptManager.getLanguages().contains(LANGUAGE));
+        assertEquals(1, scriptManager.eval(LANGUAGE, "a", Collections.singletonMap("a", 1)));
+        assertEquals(1, bundleListenerList.size());
+
+        //The factory is removed with its bundle and added back when the bundle is resolved again
+        bundleListenerList.get(0).bundleChanged(new BundleEvent(BundleEvent.UNRESOLVED, bundle));
+        assertFalse(scriptManager.getLanguages().contains(LANGUAGE));
+        bundleListenerList.get(0).bundleChanged(new BundleEvent(BundleEvent.RESOLVED, bundle));
+        assertTrue(scriptManager.getLanguages().contains(LANGUAGE));
+
+        scriptManager.deactivate();
+        assertTrue(bundleListenerList.isEmpty());
+        assertFalse(scriptManager.getLanguages().contains(LANGUAGE));
+    }
+
+    /**
+     * ISyntaxProviderManager only returning the current snapshot of the test.
+     */
+    private class SnapshotSyntaxProviderManager implements ISyntaxProviderManager {
+        @Override public void registerSyntaxProvider(ISyntaxProvider syntaxProvider) {}
+        @Override public void unregisterSyntaxProvider(ISyntaxProvider syntaxProvider) {}
+        @Override public List<ISyntaxProvider> getSyntaxProviderList() {return snapshot.getSyntaxProviderList();}
+        @Override public ISyntaxObject getSyntaxObject(String name) {return snapshot.getSyntaxObject(name);}
+        @Override public SyntaxSnapshot getSnapshot() {return snapshot;}
+        @Override public void addSyntaxChangeListener(ISyntaxChangeListener listener) {}
+        @Override public void removeSyntaxChangeListener(ISyntaxChangeListener listener) {}
+    }
+
+    /**
+     * ISyntaxProvider containing a single ISyntaxObject.
+     */
+    private static class SingleSyntaxProvider implements ISyntaxProvider {
+        private final ISyntaxObject syntaxObject;
+        private SingleSyntaxProvider(ISyntaxObject syntaxObject) {this.syntaxObject = syntaxObject;}
+        @Override public void add(ISyntaxObject syntaxObject) {}
+        @Override public void remove(ISyntaxObject syntaxObject) {}
+        @Override public Collection<ISyntaxObject> getISyntaxObjectCollection() {
+            return Collections.singletonList(syntaxObject);
+        }
+        @Override public String getName() {return "single";}
+    }
+
+    /**
+     * ScriptEngineFactory of the {@link StubScriptEngine}, counting the compiled scripts.
+     */
+    public static class StubScriptEngineFactory implements ScriptEngineFactory {
+        private final AtomicInteger compileCount = new AtomicInteger();
+        @Override public String getEngineName() {return "stub";}
+        @Override public String getEngineVersion() {return "1.0";}
+        @Override public List<String> getExtensions() {return Collections.singletonList(LANGUAGE);}
+        @Override public List<String> getMimeTypes() {return Collections.emptyList();}
+        @Override public List<String> getNames() {return Collections.singletonList(LANGUAGE);}
+        @Override public String getLanguageName() {return LANGUAGE;}
+        @Override public String getLanguageVersion() {return "1.0";}
+        @Override public Object getParameter(String key) {return null;}
+        @Override public String getMethodCallSyntax(String obj, String m, String... args) {return null;}
+        @Override public String getOutputStatement(String toDisplay) {return null;}
+        @Override public String getProgram(String... statements) {return String.join("\n", statements);}
+        @Override public ScriptEngine getScriptEngine() {return new StubScriptEngine(this);}
+    }
+
+    /**
+     * Compilable ScriptEngine whose scripts are lines of the form 'name', returning the value of the attribute
+     * 'name', 'global:name=value', writing the attribute 'name' in the global scope, or 'global:keys', returning the
+     * names of the global scope. A script returns the result of its last line.
+     */
+    private static class StubScriptEngine extends AbstractScriptEngine implements Compilable {
+        private final StubScriptEngineFactory factory;
+        private StubScriptEngine(StubScriptEngineFactory factory) {this.factory = factory;}
+
+        @Override
+        public Object eval(String script, ScriptContext context) {
+            Object result = null;
+            for(String line : script.split("\n")) {
+                line = line.trim();
+                Bindings global = context.getBindings(ScriptContext.GLOBAL_SCOPE);
+                if(line.equals("global:keys")) {
+                    result = global.entrySet().stream().map(Map.Entry::getKey).sorted()
+                            .collect(Collectors.joining(","));
+                }
+                else if(line.startsWith("global:")) {
+                    String[] assignment = line.substring("global:".length()).split("=", 2);
+                    global.put(assignment[0], assignment[1]);
+                    result = assignment[1];
+                }
+                else {
+                    result = context.getAttribute(line);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Object eval(Reader reader, ScriptContext context) {
+            return eval(new BufferedReader(reader).lines().collect(Collectors.joining("\n")), context);
+        }
+
+        @Override
+        public CompiledScript compile(String script) {
+            factory.compileCount.incrementAndGet();
+            return new CompiledScript() {
+                @Override public Object eval(ScriptContext context) {return StubScriptEngine.this.eval(script, context);}
+                @Override public ScriptEngine getEngine() {return StubScriptEngine.this;}
+            };
+        }
+
+        @Override
+        public CompiledScript compile(Reader reader) {
+            return compile(new BufferedReader(reader).lines().collect(Collectors.joining("\n")));
+        }
+
+        @Override public Bindings createBindings() {return new SimpleBindings();}
+        @Override public ScriptEngineFactory getFactory() {return factory;}
+    }
+}
@@ -54,4 +54,14 @@ public interface ISyntaxObject {
      * @return The name of the Object.
      */
     String getName();
+
+    /**
+     * Return the Object to expose under the name. By default, the ISyntaxObject itself is exposed, but a
+     * {@link LazySyntaxObject} only instantiates its value on the first call.
+     *
+     * @return The Object to expose.
+     */
+    default Object getValue() {
+        return this;
+    }
 }
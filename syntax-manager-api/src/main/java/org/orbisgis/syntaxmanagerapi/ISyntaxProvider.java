@@ -37,6 +37,7 @@
 package org.orbisgis.syntaxmanagerapi;
 
 import java.util.Collection;
+import java.util.function.Supplier;
 
 /**
  * Container grouping a collection of ISyntaxObject which can be register into a ISyntaxProviderManager in order to
@@ -57,6 +58,23 @@ public interface ISyntaxProvider {
      */
     void add(ISyntaxObject syntaxObject);
 
+    /**
+     * Add a ISyntaxObject whose value is instantiated with the given supplier on its first read, so an Object never
+     * used by a script is never built.
+     *
+     * @param name Name of the ISyntaxObject.
+     * @param type Type of the value.
+     * @param supplier Supplier of the value, called once.
+     * @param <T> Type of the value.
+     *
+     * @return The added ISyntaxObject, to give to {@link #remove(ISyntaxObject)}.
+     */
+    default <T> ISyntaxObject add(String name, Class<T> type, Supplier<? extends T> supplier) {
+        ISyntaxObject syntaxObject = new LazySyntaxObject<>(name, type, supplier);
+        add(syntaxObject);
+        return syntaxObject;
+    }
+
     /**
      * Remove a ISyntaxObject.
      *
@@ -77,4 +95,25 @@ public interface ISyntaxProvider {
      * @return The name of the ISyntaxProvider.
      */
     String getName();
+
+    /**
+     * Add a listener notified when a ISyntaxObject is added or removed. The versions of the events are increasing.
+     * By default, the changes are not notified.
+     *
+     * This listener is meant for the ISyntaxProviderManager, which keeps its index up to date with it. It is called
+     * synchronously on the thread adding or removing the ISyntaxObject, once per change, so the index is up to date
+     * when the call returns. The other consumers should use
+     * {@link ISyntaxProviderManager#addSyntaxChangeListener(ISyntaxChangeListener)}, whose events are delivered on a
+     * dedicated thread and coalesced.
+     *
+     * @param listener Listener to add.
+     */
+    default void addSyntaxChangeListener(ISyntaxChangeListener listener) {}
+
+    /**
+     * Remove a listener added with {@link #addSyntaxChangeListener(ISyntaxChangeListener)}.
+     *
+     * @param listener Listener to remove.
+     */
+    default void removeSyntaxChangeListener(ISyntaxChangeListener listener) {}
 }
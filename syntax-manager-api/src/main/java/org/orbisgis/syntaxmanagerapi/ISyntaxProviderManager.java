@@ -67,7 +67,42 @@ public interface ISyntaxProviderManager {
     /**
      * Return the ISyntaxProvider list.
      *
-     * @return The ISyntaxProvider list.
+     * @return The unmodifiable ISyntaxProvider list.
      */
     List<ISyntaxProvider> getSyntaxProviderList();
+
+    /**
+     * Return the ISyntaxObject with the given name from the registered ISyntaxProvider.
+     *
+     * @param name Name of the ISyntaxObject.
+     *
+     * @return The ISyntaxObject or null if there is no ISyntaxObject with the given name.
+     */
+    ISyntaxObject getSyntaxObject(String name);
+
+    /**
+     * Return an immutable view of the registered ISyntaxProvider and of their ISyntaxObject indexed by name. A new
+     * snapshot with a higher version is created on each registration or unregistration.
+     *
+     * @return The current snapshot.
+     */
+    SyntaxSnapshot getSnapshot();
+
+    /**
+     * Add a listener notified of the ISyntaxObject added and removed, with the version of the snapshot reached. The
+     * listener first receives all the current ISyntaxObject as added.
+     *
+     * The events are delivered on a dedicated thread, in version order. The changes happening while an event is
+     * delivered are coalesced into the next event.
+     *
+     * @param listener Listener to add.
+     */
+    void addSyntaxChangeListener(ISyntaxChangeListener listener);
+
+    /**
+     * Remove a listener added with {@link #addSyntaxChangeListener(ISyntaxChangeListener)}.
+     *
+     * @param listener Listener to remove.
+     */
+    void removeSyntaxChangeListener(ISyntaxChangeListener listener);
 }
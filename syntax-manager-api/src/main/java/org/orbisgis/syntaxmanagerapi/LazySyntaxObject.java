@@ -0,0 +1,112 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.syntaxmanagerapi;
+
+import java.util.function.Supplier;
+
+/**
+ * ISyntaxObject whose value is only instantiated on the first call of {@link #getValue()}. The supplier is called
+ * once, even if several threads read the value at the same time, and is then released.
+ *
+ * @param <T> Type of the value.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public final class LazySyntaxObject<T> implements ISyntaxObject {
+
+    /** Name of the object */
+    private final String name;
+    /** Type of the value */
+    private final Class<T> type;
+    /** Supplier of the value, null once the value is instantiated */
+    private Supplier<? extends T> supplier;
+    /** Value, null until instantiated */
+    private volatile T value;
+
+    /**
+     * Main constructor.
+     *
+     * @param name Name of the object.
+     * @param type Type of the value.
+     * @param supplier Supplier of the value, called on the first read of the value.
+     */
+    public LazySyntaxObject(String name, Class<T> type, Supplier<? extends T> supplier) {
+        this.name = name;
+        this.type = type;
+        this.supplier = supplier;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Return the type of the value, known without instantiating it.
+     *
+     * @return The type of the value.
+     */
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public T getValue() {
+        T result = value;
+        if(result == null) {
+            synchronized (this) {
+                result = value;
+                if(result == null) {
+                    result = supplier.get();
+                    value = result;
+                    supplier = null;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indicates if the value has already been instantiated.
+     *
+     * @return True if the value is instantiated, false otherwise.
+     */
+    public boolean isInstantiated() {
+        return value != null;
+    }
+}
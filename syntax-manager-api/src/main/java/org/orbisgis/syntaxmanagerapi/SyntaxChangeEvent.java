@@ -0,0 +1,133 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.syntaxmanagerapi;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Delta of the ISyntaxObject between two versions : the ISyntaxObject added and removed, with their name as key. An
+ * ISyntaxObject replaced by another one with the same name is both in the removed and added maps.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public final class SyntaxChangeEvent {
+
+    /** Version reached after the change. */
+    private final long version;
+    /** Added ISyntaxObject with their name as key. */
+    private final Map<String, ISyntaxObject> added;
+    /** Removed ISyntaxObject with their name as key. */
+    private final Map<String, ISyntaxObject> removed;
+
+    /**
+     * Main constructor.
+     *
+     * @param version Version reached after the change.
+     * @param added Added ISyntaxObject with their name as key.
+     * @param removed Removed ISyntaxObject with their name as key.
+     */
+    public SyntaxChangeEvent(long version, Map<String, ISyntaxObject> added, Map<String, ISyntaxObject> removed) {
+        this.version = version;
+        this.added = Collections.unmodifiableMap(new LinkedHashMap<>(added));
+        this.removed = Collections.unmodifiableMap(new LinkedHashMap<>(removed));
+    }
+
+    /**
+     * Return the delta between the two given snapshots.
+     *
+     * @param previous Previous snapshot.
+     * @param current Current snapshot.
+     *
+     * @return The event containing the delta, with the version of the current snapshot.
+     */
+    public static SyntaxChangeEvent between(SyntaxSnapshot previous, SyntaxSnapshot current) {
+        Map<String, ISyntaxObject> added = new LinkedHashMap<>();
+        Map<String, ISyntaxObject> removed = new LinkedHashMap<>();
+        Map<String, ISyntaxObject> previousMap = previous.getSyntaxObjectMap();
+        Map<String, ISyntaxObject> currentMap = current.getSyntaxObjectMap();
+        for(Map.Entry<String, ISyntaxObject> entry : previousMap.entrySet()) {
+            if(currentMap.get(entry.getKey()) != entry.getValue()) {
+                removed.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for(Map.Entry<String, ISyntaxObject> entry : currentMap.entrySet()) {
+            if(previousMap.get(entry.getKey()) != entry.getValue()) {
+                added.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new SyntaxChangeEvent(current.getVersion(), added, removed);
+    }
+
+    /**
+     * Return the version reached after the change. The versions of the successive events of a source are increasing.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Return the added ISyntaxObject.
+     *
+     * @return The unmodifiable map of the added ISyntaxObject with their name as key.
+     */
+    public Map<String, ISyntaxObject> getAdded() {
+        return added;
+    }
+
+    /**
+     * Return the removed ISyntaxObject.
+     *
+     * @return The unmodifiable map of the removed ISyntaxObject with their name as key.
+     */
+    public Map<String, ISyntaxObject> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Indicates if the event contains no change.
+     *
+     * @return True if no ISyntaxObject has been added or removed, false otherwise.
+     */
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Syntax Manager API is part of the OrbisGIS platform
+ *
+ * OrbisGIS is a java GIS application dedicated to research in GIScience.
+ * OrbisGIS is developed by the GIS group of the DECIDE team of the
+ * Lab-STICC CNRS laboratory, see <http://www.lab-sticc.fr/>.
+ *
+ * The GIS group of the DECIDE team is located at :
+ *
+ * Laboratoire Lab-STICC – CNRS UMR 6285
+ * Equipe DECIDE
+ * UNIVERSITÉ DE BRETAGNE-SUD
+ * Institut Universitaire de Technologie de Vannes
+ * 8, Rue Montaigne - BP 561 56017 Vannes Cedex
+ *
+ * Syntax Manager API is distributed under GPL 3 license.
+ *
+ * Copyright (C) 2018 CNRS (Lab-STICC UMR CNRS 6285)
+ *
+ *
+ * Syntax Manager API is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Syntax Manager API is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Syntax Manager API. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * For more information, please consult: <http://www.orbisgis.org/>
+ * or contact directly:
+ * info_at_ orbisgis.org
+ */
+package org.orbisgis.syntaxmanagerapi;
+
+import java.util.*;
+
+/**
+ * Immutable view of the content of a ISyntaxProviderManager at a given time : the registered ISyntaxProvider and the
+ * ISyntaxObject indexed by name.
+ *
+ * Each change of the registered ISyntaxProvider creates a new snapshot with a higher version, so a snapshot can be
+ * kept and read without any synchronization while bundles come and go. When several ISyntaxObject have the same
+ * name, the one of the first registered ISyntaxProvider is indexed.
+ *
+ * @author Sylvain PALOMINOS (UBS 2018)
+ * @author Erwan Bocher (CNRS)
+ */
+public final class SyntaxSnapshot {
+
+    /** Version of the snapshot. */
+    private final long version;
+    /** Registered ISyntaxProvider in registration order. */
+    private final List<ISyntaxProvider> syntaxProviderList;
+    /** ISyntaxObject with their name as key. */
+    private final Map<String, ISyntaxObject> syntaxObjectMap;
+
+    /**
+     * Main constructor. The ISyntaxObject of the given providers are indexed by name.
+     *
+     * @param version Version of the snapshot.
+     * @param syntaxProviders Registered ISyntaxProvider in registration order.
+     */
+    public SyntaxSnapshot(long version, Collection<ISyntaxProvider> syntaxProviders) {
+        this.version = version;
+        this.syntaxProviderList = Collections.unmodifiableList(new ArrayList<>(syntaxProviders));
+        Map<String, ISyntaxObject> map = new LinkedHashMap<>();
+        for(ISyntaxProvider syntaxProvider : syntaxProviderList) {
+            Collection<ISyntaxObject> syntaxObjects = syntaxProvider.getISyntaxObjectCollection();
+            if(syntaxObjects == null) {
+                continue;
+            }
+            for(ISyntaxObject syntaxObject : syntaxObjects) {
+                if(syntaxObject.getName() != null) {
+                    map.putIfAbsent(syntaxObject.getName(), syntaxObject);
+                }
+            }
+        }
+        this.syntaxObjectMap = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Return the version of the snapshot. A newer snapshot has a higher version.
+     *
+     * @return The version of the snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Return the registered ISyntaxProvider in registration order.
+     *
+     * @return The unmodifiable ISyntaxProvider list.
+     */
+    public List<ISyntaxProvider> getSyntaxProviderList() {
+        return syntaxProviderList;
+    }
+
+    /**
+     * Return the ISyntaxObject with the given name.
+     *
+     * @param name Name of the ISyntaxObject.
+     *
+     * @return The ISyntaxObject or null if there is no ISyntaxObject with the given name.
+     */
+    public ISyntaxObject getSyntaxObject(String name) {
+        return syntaxObjectMap.get(name);
+    }
+
+    /**
+     * Return all the ISyntaxObject with their name as key.
+     *
+     * @return The unmodifiable map of the ISyntaxObject.
+     */
+    public Map<String, ISyntaxObject> getSyntaxObjectMap() {
+        return syntaxObjectMap;
+    }
+}
@@ -36,20 +36,38 @@
  */
 package org.orbisgis.syntaxmanager;
 
+import org.orbisgis.syntaxmanagerapi.ISyntaxChangeListener;
 import org.orbisgis.syntaxmanagerapi.ISyntaxObject;
 import org.orbisgis.syntaxmanagerapi.ISyntaxProvider;
 import org.orbisgis.syntaxmanagerapi.ISyntaxProviderManager;
+import org.orbisgis.syntaxmanagerapi.SyntaxChangeEvent;
+import org.orbisgis.syntaxmanagerapi.SyntaxSnapshot;
 import org.osgi.service.component.annotations.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 /**
  * Implementation of ISyntaxProviderManager.
  *
+ * The registered ISyntaxProvider are kept in an immutable {@link SyntaxSnapshot} replaced atomically on each
+ * registration or unregistration, so the lookups never lock and are safe while the SCR binds and unbinds providers.
+ * The snapshot is also replaced when a provider notifies the addition or the removal of an ISyntaxObject. Only the
+ * providers which do not notify their changes are scanned on a lookup miss.
+ *
+ * The ISyntaxChangeListener are notified on a dedicated thread : each listener receives the delta between the last
+ * snapshot it has received and the current one, so the changes happening during a delivery are coalesced.
+ *
  * @author Sylvain PALOMINOS (UBS 2018)
  * @author Erwan Bocher (CNRS)
  */
@@ -60,8 +78,23 @@ public class SyntaxProviderManager implements ISyntaxProviderManager, ISyntaxObj
     private static final String NAME = "syntaxManager";
     private static final Logger LOGGER = LoggerFactory.getLogger(SyntaxProviderManager.class);
 
-    /** List of ISyntaxProvider */
-    private List<ISyntaxProvider> syntaxProviderList = new ArrayList<>();
+    /** Current snapshot of the ISyntaxProvider and of the ISyntaxObject index */
+    private final AtomicReference<SyntaxSnapshot> snapshot =
+            new AtomicReference<>(new SyntaxSnapshot(0, Collections.emptyList()));
+    /** Last snapshot delivered to each listener, with the listener as key */
+    private final Map<ISyntaxChangeListener, SyntaxSnapshot> listenerMap = new ConcurrentHashMap<>();
+    /** True if a delivery of the changes is scheduled and not started yet */
+    private final AtomicBoolean isDeliveryScheduled = new AtomicBoolean();
+    /** Executor delivering the changes to the listeners */
+    private final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Syntax change delivery");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Listener of the ISyntaxObject added and removed from the registered providers */
+    private final ISyntaxChangeListener providerListener = event -> updateSnapshot(Function.identity());
+    /** Registered providers which do not notify their changes, so their ISyntaxObject may be missing from the index */
+    private final Set<ISyntaxProvider> unobservedProviderSet = ConcurrentHashMap.newKeySet();
 
     @Activate
     public void activate(){
@@ -70,22 +103,140 @@ public class SyntaxProviderManager implements ISyntaxProviderManager, ISyntaxObj
         this.registerSyntaxProvider(syntaxProvider);
     }
 
+    @Deactivate
+    public void deactivate(){
+        deliveryExecutor.shutdownNow();
+    }
+
     @Override
     @Reference(service = ISyntaxProvider.class, cardinality = ReferenceCardinality.MULTIPLE, policy = ReferencePolicy.DYNAMIC)
     public void registerSyntaxProvider(ISyntaxProvider syntaxProvider){
-        syntaxProviderList.add(syntaxProvider);
+        //Listen to the provider before indexing it, so an ISyntaxObject added in between is not missed
+        if(isObservable(syntaxProvider)) {
+            syntaxProvider.addSyntaxChangeListener(providerListener);
+        }
+        else {
+            unobservedProviderSet.add(syntaxProvider);
+        }
+        updateSnapshot(list -> {
+            list.add(syntaxProvider);
+            return list;
+        });
         LOGGER.debug("SyntaxProvider '" + syntaxProvider.getName() + "' registered");
     }
 
     @Override
     public void unregisterSyntaxProvider(ISyntaxProvider syntaxProvider){
-        syntaxProviderList.remove(syntaxProvider);
+        syntaxProvider.removeSyntaxChangeListener(providerListener);
+        updateSnapshot(list -> {
+            list.remove(syntaxProvider);
+            return list;
+        });
+        unobservedProviderSet.remove(syntaxProvider);
         LOGGER.debug("SyntaxProvider '" + syntaxProvider.getName() + "' unregistered");
     }
 
     @Override
     public List<ISyntaxProvider> getSyntaxProviderList(){
-        return syntaxProviderList;
+        return snapshot.get().getSyntaxProviderList();
+    }
+
+    @Override
+    public ISyntaxObject getSyntaxObject(String name){
+        ISyntaxObject syntaxObject = snapshot.get().getSyntaxObject(name);
+        if(syntaxObject == null && name != null) {
+            //The ISyntaxObject may have been added to a provider which does not notify its changes
+            for(ISyntaxProvider syntaxProvider : unobservedProviderSet) {
+                Collection<ISyntaxObject> syntaxObjects = syntaxProvider.getISyntaxObjectCollection();
+                for(ISyntaxObject object : syntaxObjects == null ? Collections.<ISyntaxObject>emptyList() :
+                        syntaxObjects) {
+                    if(name.equals(object.getName())) {
+                        return object;
+                    }
+                }
+            }
+        }
+        return syntaxObject;
+    }
+
+    @Override
+    public SyntaxSnapshot getSnapshot(){
+        return snapshot.get();
+    }
+
+    @Override
+    public void addSyntaxChangeListener(ISyntaxChangeListener listener){
+        listenerMap.putIfAbsent(listener, new SyntaxSnapshot(0, Collections.emptyList()));
+        scheduleDelivery();
+    }
+
+    @Override
+    public void removeSyntaxChangeListener(ISyntaxChangeListener listener){
+        listenerMap.remove(listener);
+    }
+
+    /**
+     * Indicates if the given provider notifies the addition and the removal of its ISyntaxObject, which is the case if
+     * it overrides the default {@link ISyntaxProvider#addSyntaxChangeListener(ISyntaxChangeListener)} method.
+     *
+     * @param syntaxProvider ISyntaxProvider to check.
+     *
+     * @return True if the provider notifies its changes, false otherwise.
+     */
+    private static boolean isObservable(ISyntaxProvider syntaxProvider){
+        try {
+            return syntaxProvider.getClass().getMethod("addSyntaxChangeListener", ISyntaxChangeListener.class)
+                    .getDeclaringClass() != ISyntaxProvider.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Replace the current snapshot by a new one with a higher version, built from the provider list returned by the
+     * given function, then schedule the delivery of the changes.
+     *
+     * @param update Function receiving a modifiable copy of the current provider list and returning the new list.
+     */
+    private void updateSnapshot(Function<List<ISyntaxProvider>, List<ISyntaxProvider>> update){
+        snapshot.updateAndGet(current -> new SyntaxSnapshot(current.getVersion() + 1,
+                update.apply(new ArrayList<>(current.getSyntaxProviderList()))));
+        scheduleDelivery();
+    }
+
+    /**
+     * Schedule the delivery of the changes to the listeners, unless a delivery is already waiting to start.
+     */
+    private void scheduleDelivery(){
+        if(!listenerMap.isEmpty() && isDeliveryScheduled.compareAndSet(false, true)){
+            try {
+                deliveryExecutor.execute(this::deliver);
+            } catch (RejectedExecutionException e) {
+                isDeliveryScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Deliver to each listener the delta between the last snapshot it has received and the current one.
+     */
+    private void deliver(){
+        isDeliveryScheduled.set(false);
+        SyntaxSnapshot current = snapshot.get();
+        for(Map.Entry<ISyntaxChangeListener, SyntaxSnapshot> entry : listenerMap.entrySet()){
+            SyntaxSnapshot previous = entry.getValue();
+            if(previous == current || !listenerMap.replace(entry.getKey(), previous, current)){
+                continue;
+            }
+            SyntaxChangeEvent event = SyntaxChangeEvent.between(previous, current);
+            if(!event.isEmpty()){
+                try {
+                    entry.getKey().syntaxChanged(event);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error while notifying a syntax change listener", e);
+                }
+            }
+        }
     }
 
     @Override
@@ -96,16 +247,37 @@ public class SyntaxProviderManager implements ISyntaxProviderManager, ISyntaxObj
     private class SyntaxProvider implements ISyntaxProvider {
 
         private static final String NAME = "SyntaxManager Provider";
-        private List<ISyntaxObject> syntaxObjectList = new ArrayList<>();
+        private List<ISyntaxObject> syntaxObjectList = new CopyOnWriteArrayList<>();
+        private List<ISyntaxChangeListener> listenerList = new CopyOnWriteArrayList<>();
+        private AtomicLong version = new AtomicLong();
 
         @Override
         public void add(ISyntaxObject syntaxObject) {
             syntaxObjectList.add(syntaxObject);
+            fireSyntaxChanged(Collections.singletonMap(syntaxObject.getName(), syntaxObject), Collections.emptyMap());
         }
 
         @Override
         public void remove(ISyntaxObject syntaxObject) {
-            syntaxObjectList.remove(syntaxObject);
+            if(syntaxObjectList.remove(syntaxObject)) {
+                fireSyntaxChanged(Collections.emptyMap(),
+                        Collections.singletonMap(syntaxObject.getName(), syntaxObject));
+            }
+        }
+
+        @Override
+        public void addSyntaxChangeListener(ISyntaxChangeListener listener) {
+            listenerList.add(listener);
+        }
+
+        @Override
+        public void removeSyntaxChangeListener(ISyntaxChangeListener listener) {
+            listenerList.remove(listener);
+        }
+
+        private void fireSyntaxChanged(Map<String, ISyntaxObject> added, Map<String, ISyntaxObject> removed) {
+            SyntaxChangeEvent event = new SyntaxChangeEvent(version.incrementAndGet(), added, removed);
+            listenerList.forEach(listener -> listener.syntaxChanged(event));
         }
 
         @Override